@@ -0,0 +1,94 @@
+package com.dejankos.builder;
+
+import java.net.IDN;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Host normalization: lowercase, no trailing dots, IDN converted to punycode.
+ * <P>
+ *
+ * Hosts that are already lowercase ASCII without a trailing dot are returned as is.
+ * Hosts IDN can't convert are only lowercased and stripped of trailing dots, normalization never throws.
+ * Everything else is memoized in a bounded two generation cache, when the current
+ * generation fills up it becomes the previous one and hits there are promoted back.
+ */
+final class HostNormalizer {
+
+    private static final int MAX_GENERATION_SIZE = 2048;
+
+    private static volatile Generations generations = new Generations(new ConcurrentHashMap<String, String>());
+
+    private HostNormalizer() {
+    }
+
+    static String normalize(String host) {
+        if (host == null || isNormalized(host)) {
+            return host;
+        }
+
+        Generations cache = generations;
+        String normalized = cache.current.get(host);
+        if (normalized != null) {
+            return normalized;
+        }
+
+        normalized = cache.previous.get(host);
+        if (normalized == null) {
+            normalized = toAscii(host);
+        }
+        cache.current.put(host, normalized);
+        if (cache.current.size() >= MAX_GENERATION_SIZE) {
+            generations = new Generations(cache.current);
+        }
+
+        return normalized;
+    }
+
+    private static boolean isNormalized(String host) {
+        int length = host.length();
+        if (length > 0 && host.charAt(length - 1) == '.') {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = host.charAt(i);
+            if (c > 127 || (c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String toAscii(String host) {
+        int end = host.length();
+        while (end > 0 && host.charAt(end - 1) == '.') {
+            end--;
+        }
+
+        String lowercase = host.substring(0, end).toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lowercase.length(); i++) {
+            if (lowercase.charAt(i) > 127) {
+                try {
+                    return IDN.toASCII(lowercase);
+                } catch (IllegalArgumentException e) {
+                    // not a valid IDN, e.g. a label over 63 characters, keep it lowercased
+                    return lowercase;
+                }
+            }
+        }
+
+        return lowercase;
+    }
+
+    private static final class Generations {
+
+        private final ConcurrentHashMap<String, String> current = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, String> previous;
+
+        private Generations(ConcurrentHashMap<String, String> previous) {
+            this.previous = previous;
+        }
+    }
+}
@@ -4,44 +4,53 @@ import com.dejankos.model.Parameter;
 
 import java.util.*;
 
+/**
+ * Ordered parameters, each entry is a StringParameter or a PrimitiveParameter.
+ */
 class ParameterList {
 
-    private final List<Parameter> parameterList = new ArrayList<>();
+    private final List<QueryParameter> parameterList = new ArrayList<>();
 
     void addParameter(Parameter parameter) {
+        parameterList.add(StringParameter.of(parameter));
+    }
+
+    void addParameter(String name, String... value) {
+        parameterList.add(StringParameter.of(name, value));
+    }
+
+    void addParameter(QueryParameter parameter) {
         parameterList.add(parameter);
     }
 
     void addParameters(List<Parameter> parameters) {
-        parameterList.addAll(parameters);
+        for (Parameter parameter : parameters) {
+            addParameter(parameter);
+        }
     }
 
     void removeParameter(String name) {
-        Iterator<Parameter> it = parameterList.iterator();
+        Iterator<QueryParameter> it = parameterList.iterator();
         while (it.hasNext()){
-            Parameter parameter = it.next();
-            if(parameter.getName().equals(name)){
+            if(it.next().getName().equals(name)){
                 it.remove();
             }
         }
     }
 
     void removeParameter(Parameter parameter) {
-        if(parameterList.contains(parameter)){
-            Iterator<Parameter> it = parameterList.iterator();
-            while (it.hasNext()){
-                if(it.next().equals(parameter)){
-                    it.remove();
-                }
+        Iterator<QueryParameter> it = parameterList.iterator();
+        while (it.hasNext()){
+            if(it.next().matches(parameter)){
+                it.remove();
             }
         }
     }
 
     void replaceParameterValue(String name, String... newValue) {
-        for(Parameter parameter : parameterList) {
-            if (parameter.getName().equals(name)) {
-                int indexOf = parameterList.indexOf(parameter);
-                parameterList.set(indexOf, new Parameter(name, newValue));
+        for(int i = 0; i < parameterList.size(); i++) {
+            if (parameterList.get(i).getName().equals(name)) {
+                parameterList.set(i, StringParameter.of(name, newValue));
             }
         }
     }
@@ -50,8 +59,26 @@ class ParameterList {
         return parameterList.isEmpty();
     }
 
+    int size() {
+        return parameterList.size();
+    }
+
+    QueryParameter get(int index) {
+        return parameterList.get(index);
+    }
+
+    /**
+     * Materialize every entry as a new Parameter, so the cost is linear in parameters and values on each call.
+     *
+     * @return unmodifiable Parameter list that doesn't share state with this list
+     */
     List<Parameter> getParameterList() {
-        return Collections.unmodifiableList(parameterList);
+        List<Parameter> parameters = new ArrayList<>(parameterList.size());
+        for (QueryParameter parameter : parameterList) {
+            parameters.add(parameter.toParameter());
+        }
+
+        return Collections.unmodifiableList(parameters);
     }
 
 }
@@ -0,0 +1,88 @@
+package com.dejankos.builder;
+
+import com.dejankos.model.Parameter;
+
+/**
+ * Parameter with unboxed numeric or boolean value.
+ * Values are written as decimal text straight into the output, they never need encoding.
+ */
+final class PrimitiveParameter extends QueryParameter {
+
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int BOOLEAN = 2;
+    private static final int LONG_ARRAY = 3;
+
+    private final String name;
+    private final int type;
+    private final long value;
+    private final long[] values;
+
+    private PrimitiveParameter(String name, int type, long value, long[] values) {
+        this.name = name;
+        this.type = type;
+        this.value = value;
+        this.values = values;
+    }
+
+    static PrimitiveParameter of(String name, long value) {
+        return new PrimitiveParameter(name, LONG, value, null);
+    }
+
+    static PrimitiveParameter of(String name, double value) {
+        return new PrimitiveParameter(name, DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    static PrimitiveParameter of(String name, boolean value) {
+        return new PrimitiveParameter(name, BOOLEAN, value ? 1 : 0, null);
+    }
+
+    static PrimitiveParameter of(String name, long[] values) {
+        return new PrimitiveParameter(name, LONG_ARRAY, 0, values.clone());
+    }
+
+    @Override
+    String getName() {
+        return name;
+    }
+
+    @Override
+    int getValueCount() {
+        return type == LONG_ARRAY ? values.length : 1;
+    }
+
+    /**
+     * Append value as text, never needs encoding so charset is ignored.
+     */
+    @Override
+    void appendValue(StringBuilder uri, int index, String charset) {
+        switch (type) {
+            case DOUBLE:
+                uri.append(Double.longBitsToDouble(value));
+                break;
+            case BOOLEAN:
+                uri.append(value != 0);
+                break;
+            case LONG_ARRAY:
+                uri.append(values[index]);
+                break;
+            default:
+                uri.append(value);
+        }
+    }
+
+    @Override
+    Parameter toParameter() {
+        if (type != LONG_ARRAY) {
+            StringBuilder text = new StringBuilder();
+            appendValue(text, 0, null);
+            return new Parameter(name, text.toString());
+        }
+
+        String[] text = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            text[i] = Long.toString(values[i]);
+        }
+        return new Parameter(name, text);
+    }
+}
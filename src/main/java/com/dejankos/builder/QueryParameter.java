@@ -0,0 +1,32 @@
+package com.dejankos.builder;
+
+import com.dejankos.model.Parameter;
+
+/**
+ * Query parameter entry of a ParameterList.
+ * Entries are written straight into the output, a parameter without values is written as "name=".
+ */
+abstract class QueryParameter {
+
+    abstract String getName();
+
+    abstract int getValueCount();
+
+    /**
+     * Append value at index.
+     *
+     * @param uri output
+     * @param index value index, less than getValueCount
+     * @param charset charset to encode with, null for no encoding
+     */
+    abstract void appendValue(StringBuilder uri, int index, String charset);
+
+    /**
+     * Materialize as String valued Parameter, the result doesn't share state with this entry.
+     */
+    abstract Parameter toParameter();
+
+    boolean matches(Parameter parameter) {
+        return getName().equals(parameter.getName()) && toParameter().equals(parameter);
+    }
+}
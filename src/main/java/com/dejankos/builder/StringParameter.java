@@ -0,0 +1,53 @@
+package com.dejankos.builder;
+
+import com.dejankos.model.Parameter;
+
+import java.util.Arrays;
+
+/**
+ * Parameter with String values, encoded with the builder charset when written.
+ * Values are copied on entry so callers can't change a built URI by mutating them.
+ */
+final class StringParameter extends QueryParameter {
+
+    private final String name;
+    private final String[] values;
+
+    private StringParameter(String name, String[] values) {
+        this.name = name;
+        this.values = values;
+    }
+
+    static StringParameter of(String name, String... values) {
+        return new StringParameter(name, values == null ? null : values.clone());
+    }
+
+    static StringParameter of(Parameter parameter) {
+        return of(parameter.getName(), parameter.getValue());
+    }
+
+    @Override
+    String getName() {
+        return name;
+    }
+
+    @Override
+    int getValueCount() {
+        return values == null ? 0 : values.length;
+    }
+
+    @Override
+    void appendValue(StringBuilder uri, int index, String charset) {
+        uri.append(StringUtils.encode(values[index], charset));
+    }
+
+    @Override
+    Parameter toParameter() {
+        return new Parameter(name, values == null ? null : values.clone());
+    }
+
+    @Override
+    boolean matches(Parameter parameter) {
+        return name.equals(parameter.getName()) && Arrays.equals(values, parameter.getValue());
+    }
+}
@@ -1,5 +1,10 @@
 package com.dejankos.builder;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import static com.dejankos.builder.Constant.EMPTY_STRING;
+
 final class StringUtils {
 
     static boolean isNullorEmpty(String value) {
@@ -8,4 +13,22 @@ final class StringUtils {
         }
         return false;
     }
+
+    /**
+     * URL encode value, null charset leaves it as is and null value is written as empty.
+     */
+    static String encode(String value, String charset) {
+        if (value == null) {
+            return EMPTY_STRING;
+        }
+        if (charset == null) {
+            return value;
+        }
+
+        try {
+            return URLEncoder.encode(value, charset);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
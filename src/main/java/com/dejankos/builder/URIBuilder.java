@@ -4,10 +4,13 @@ import com.dejankos.model.Parameter;
 import com.dejankos.model.ParsedURI;
 import com.dejankos.uri.UriScheme;
 
-import java.io.UnsupportedEncodingException;
+import java.io.IOException;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +19,8 @@ import static com.dejankos.builder.Constant.*;
 
 public final class URIBuilder {
 
+    private static final int STREAM_CHUNK_SIZE = 8192;
+
     private final ParameterList parameterList = new ParameterList();
 
     private String charset;
@@ -24,12 +29,15 @@ public final class URIBuilder {
     private String path;
     private Integer port;
 
+    private String built;
+    private URI builtURI;
+
     private URIBuilder(String host) {
         if (StringUtils.isNullorEmpty(host)) {
             throw new IllegalArgumentException("Host can't be empty!");
         }
 
-        this.host = host;
+        this.host = normalizeHost(host);
     }
     
     private URIBuilder(ParsedURI parsedURI) {
@@ -42,6 +50,8 @@ public final class URIBuilder {
 
     /**
      * Create an instance of URIBuilder from host.
+     * Host is lowercased, trailing dots are removed and IDN hosts are converted to punycode.
+     * An optional "scheme://" prefix and anything after the host, e.g. a port or path, are kept as is.
      *
      * @param host URI host
      * @return URIBuilder new instance
@@ -69,6 +79,7 @@ public final class URIBuilder {
      */
     public URIBuilder setScheme(UriScheme scheme) {
         this.scheme = scheme;
+        invalidate();
         return this;
     }
 
@@ -84,6 +95,7 @@ public final class URIBuilder {
      */
     public URIBuilder setScheme(String scheme) {
         this.scheme = UriScheme.valueOf(getClearedScheme(scheme));
+        invalidate();
         return this;
     }
 
@@ -99,6 +111,7 @@ public final class URIBuilder {
      */
     public URIBuilder setPort(Integer port) {
         this.port = port;
+        invalidate();
         return this;
     }
 
@@ -110,6 +123,7 @@ public final class URIBuilder {
      */
     public URIBuilder setPath(String path) {
         this.path = path;
+        invalidate();
         return this;
     }
 
@@ -134,6 +148,7 @@ public final class URIBuilder {
      */
     public URIBuilder setParameters(List<Parameter> parameters) {
         parameterList.addParameters(parameters);
+        invalidate();
         return this;
     }
 
@@ -146,6 +161,7 @@ public final class URIBuilder {
      */
     public URIBuilder setParameter(Parameter parameter) {
         parameterList.addParameter(parameter);
+        invalidate();
         return this;
     }
 
@@ -157,7 +173,75 @@ public final class URIBuilder {
      * @return URIBuilder instance
      */
     public URIBuilder setParameter(String name, String... value) {
-        setParameter(new Parameter(name, value));
+        parameterList.addParameter(name, value);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Set int parameter.
+     * Value is written as decimal text, without boxing or encoding.
+     *
+     * @param name Parameter name
+     * @param value Parameter value
+     * @return URIBuilder instance
+     */
+    public URIBuilder setParameter(String name, int value) {
+        return setParameter(name, (long) value);
+    }
+
+    /**
+     * Set long parameter.
+     * Value is written as decimal text, without boxing or encoding.
+     *
+     * @param name Parameter name
+     * @param value Parameter value
+     * @return URIBuilder instance
+     */
+    public URIBuilder setParameter(String name, long value) {
+        parameterList.addParameter(PrimitiveParameter.of(name, value));
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Set double parameter.
+     * Value is written as Double.toString text, without boxing or encoding.
+     *
+     * @param name Parameter name
+     * @param value Parameter value
+     * @return URIBuilder instance
+     */
+    public URIBuilder setParameter(String name, double value) {
+        parameterList.addParameter(PrimitiveParameter.of(name, value));
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Set boolean parameter, written as true or false.
+     *
+     * @param name Parameter name
+     * @param value Parameter value
+     * @return URIBuilder instance
+     */
+    public URIBuilder setParameter(String name, boolean value) {
+        parameterList.addParameter(PrimitiveParameter.of(name, value));
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Set multi value long parameter.
+     * Values are written as decimal text, without boxing or encoding.
+     *
+     * @param name Parameter name
+     * @param values Parameter values, copied
+     * @return URIBuilder instance
+     */
+    public URIBuilder setParameterValues(String name, long... values) {
+        parameterList.addParameter(PrimitiveParameter.of(name, values));
+        invalidate();
         return this;
     }
 
@@ -171,6 +255,7 @@ public final class URIBuilder {
      */
     public URIBuilder replaceParameterValue(String name, String... newValue) {
         parameterList.replaceParameterValue(name, newValue);
+        invalidate();
         return this;
     }
 
@@ -183,6 +268,7 @@ public final class URIBuilder {
      */
     public URIBuilder removeParameter(String name) {
         parameterList.removeParameter(name);
+        invalidate();
         return this;
     }
 
@@ -195,6 +281,7 @@ public final class URIBuilder {
      */
     public URIBuilder removeParameter(Parameter parameter) {
         parameterList.removeParameter(parameter);
+        invalidate();
         return this;
     }
 
@@ -206,6 +293,7 @@ public final class URIBuilder {
      */
     public URIBuilder setCharset(String charset) {
         this.charset = charset;
+        invalidate();
         return this;
     }
 
@@ -216,135 +304,324 @@ public final class URIBuilder {
      */
     public URIBuilder setDefaultCharset() {
         charset = DEFAULT_ENCODING;
+        invalidate();
         return this;
     }
 
 
     /**
-     * Build URI as string
+     * Build URI as string.
+     * The result is cached until the builder is modified, parameter value arrays are copied
+     * when set so later changes to the caller's arrays don't affect it.
      *
      * @return String URI value
      */
     @Override
     public String toString() {
-        return build();
+        if (built == null) {
+            built = buildFromParts();
+        }
+
+        return built;
     }
 
     /**
-     * Build URI
+     * Build URI.
+     * The result is cached until the builder is modified, parameter value arrays are copied
+     * when set so later changes to the caller's arrays don't affect it.
      *
      * @return constructed URI
      */
     public URI toURI() {
-        try {
-            return new URI(build());
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+        if (builtURI == null) {
+            try {
+                builtURI = new URI(toString());
+            } catch (URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
         }
+
+        return builtURI;
     }
 
-    private String build() {
-        return buildFromParts();
+    /**
+     * Build URI as ParsedURI.
+     * Parameter values are not encoded, primitive values are converted to String.
+     * Every parameter is copied into a new Parameter on each call, so the ParsedURI doesn't share state with the builder.
+     * @see ParsedURI
+     *
+     * @return ParsedURI
+     */
+    public ParsedURI toParsedURI() {
+        return new ParsedURI(scheme, host, path, port, parameterList.getParameterList());
     }
 
-    private String buildFromParts() {
-        StringBuilder uri = new StringBuilder()
-                .append(getScheme())
-                .append(getHost())
-                .append(getPort())
-                .append(getPath())
-                .append(getQueryString());
+    /**
+     * Write URI to writer.
+     * The query string is encoded and written in chunks, the whole URI is never held in memory.
+     *
+     * @param writer Writer
+     * @throws IOException on write failure
+     */
+    public void writeTo(Writer writer) throws IOException {
+        if (built != null) {
+            writer.write(built);
+            return;
+        }
 
-        return uri.toString();
+        StringBuilder chunk = new StringBuilder(STREAM_CHUNK_SIZE);
+        appendPrefix(chunk);
+        boolean firstPair = true;
+        for (int i = 0; i < parameterList.size(); i++) {
+            QueryParameter parameter = parameterList.get(i);
+            String name = getEncodedName(parameter);
+            int valueCount = getValueCount(parameter);
+            for (int j = 0; j < valueCount; j++) {
+                chunk.append(firstPair ? URI_QUERIABLE_OBJECT_SEPARATOR : PARAMETER_SEPARATOR);
+                appendNameValuePair(chunk, parameter, name, j);
+                firstPair = false;
+
+                if (chunk.length() >= STREAM_CHUNK_SIZE) {
+                    writer.append(chunk);
+                    chunk.setLength(0);
+                }
+            }
+        }
+        writer.append(chunk);
+    }
+
+    /**
+     * Write URI to channel, using the builder charset or UTF-8 when none is set.
+     * The channel is not closed.
+     * @see #writeTo(Writer)
+     *
+     * @param channel WritableByteChannel
+     * @throws IOException on write failure
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        Writer writer = Channels.newWriter(channel, charset == null ? DEFAULT_ENCODING : charset);
+        writeTo(writer);
+        writer.flush();
     }
 
-    private String getScheme() {
-        if (scheme == null) {
-            return EMPTY_STRING;
+    /**
+     * Build URIs no longer than maxLength by spreading the values of one parameter across them.
+     * <P>
+     *
+     * Every URI carries the scheme, host, port, path and all other parameters, followed by as many
+     * values of the paged parameter as fit. Values keep their order and each one is encoded once,
+     * so the minimum number of URIs is built in a single pass.
+     *
+     * @param pagedParameterName name of the parameter whose values are spread
+     * @param maxLength maximum URI length
+     * @return URIs as strings, a single URI if all values fit
+     * @throws IllegalArgumentException if the constant part or a single value doesn't fit
+     */
+    public List<String> toPagedStrings(String pagedParameterName, int maxLength) {
+        StringBuilder page = new StringBuilder();
+        appendPrefix(page);
+        boolean hasConstantPairs = false;
+        for (int i = 0; i < parameterList.size(); i++) {
+            if (isPaged(i, pagedParameterName)) {
+                continue;
+            }
+
+            QueryParameter parameter = parameterList.get(i);
+            String name = getEncodedName(parameter);
+            int valueCount = getValueCount(parameter);
+            for (int j = 0; j < valueCount; j++) {
+                page.append(hasConstantPairs ? PARAMETER_SEPARATOR : URI_QUERIABLE_OBJECT_SEPARATOR);
+                appendNameValuePair(page, parameter, name, j);
+                hasConstantPairs = true;
+            }
+        }
+        if (page.length() > maxLength) {
+            throw new IllegalArgumentException("URI without paged parameter is longer than " + maxLength + "!");
+        }
+
+        List<String> pages = new ArrayList<>();
+        int constantLength = page.length();
+        boolean pageHasValues = false;
+        StringBuilder pair = new StringBuilder();
+        for (int i = 0; i < parameterList.size(); i++) {
+            if (!isPaged(i, pagedParameterName)) {
+                continue;
+            }
+
+            QueryParameter parameter = parameterList.get(i);
+            String name = getEncodedName(parameter);
+            int valueCount = getValueCount(parameter);
+            for (int j = 0; j < valueCount; j++) {
+                pair.setLength(0);
+                appendNameValuePair(pair, parameter, name, j);
+
+                if (page.length() + 1 + pair.length() > maxLength && pageHasValues) {
+                    pages.add(page.toString());
+                    page.setLength(constantLength);
+                    pageHasValues = false;
+                }
+                if (page.length() + 1 + pair.length() > maxLength) {
+                    throw new IllegalArgumentException("Parameter " + pagedParameterName + " value doesn't fit in " + maxLength + "!");
+                }
+
+                page.append(hasConstantPairs || pageHasValues ? PARAMETER_SEPARATOR : URI_QUERIABLE_OBJECT_SEPARATOR);
+                page.append(pair);
+                pageHasValues = true;
+            }
+        }
+
+        if (pageHasValues || pages.isEmpty()) {
+            pages.add(page.toString());
         }
 
-        return scheme.getScheme() + SCHEME_HOST_SEPARATOR;
+        return pages;
     }
 
-    private String getHost() {
-        if (host == null) {
-            throw new IllegalStateException("How did you get here in the first place?");
+    private boolean isPaged(int index, String pagedParameterName) {
+        return pagedParameterName.equals(parameterList.get(index).getName());
+    }
+
+    /**
+     * Normalize only the host part of value, skipping an optional "scheme://" prefix
+     * and stopping at the first '/', '?', '#' or ':'.
+     */
+    private static String normalizeHost(String value) {
+        int start = schemeLength(value);
+        int end;
+        if (start < value.length() && value.charAt(start) == '[') {
+            end = value.indexOf(']', start) + 1;
+            end = end > 0 ? end : value.length();
+        } else {
+            end = start;
+            while (end < value.length() && "/?#:".indexOf(value.charAt(end)) < 0) {
+                end++;
+            }
         }
 
-        return host;
+        String normalized = HostNormalizer.normalize(value.substring(start, end));
+        if (StringUtils.isNullorEmpty(normalized)) {
+            throw new IllegalArgumentException("Host can't be empty!");
+        }
+        if (start == 0 && end == value.length()) {
+            return normalized;
+        }
+
+        return value.substring(0, start) + normalized + value.substring(end);
     }
 
-    private String getPort() {
-        if (port == null) {
-            return EMPTY_STRING;
+    /**
+     * @return length of "scheme://" prefix or 0 if value has none
+     */
+    private static int schemeLength(String value) {
+        int separator = value.indexOf(SCHEME_HOST_SEPARATOR);
+        if (separator <= 0) {
+            return 0;
+        }
+        for (int i = 0; i < separator; i++) {
+            char c = value.charAt(i);
+            boolean schemeChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (i > 0 && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'));
+            if (!schemeChar) {
+                return 0;
+            }
         }
 
-        return ":" + port;
+        return separator + SCHEME_HOST_SEPARATOR.length();
     }
 
-    private String getPath() {
-        if (StringUtils.isNullorEmpty(path)) {
-            return EMPTY_STRING;
+    /**
+     * Drop the memoized build output, called by every mutator.
+     */
+    private void invalidate() {
+        built = null;
+        builtURI = null;
+    }
+
+    private String buildFromParts() {
+        StringBuilder uri = new StringBuilder();
+        appendPrefix(uri);
+        appendQueryString(uri);
+
+        return uri.toString();
+    }
+
+    private void appendPrefix(StringBuilder uri) {
+        appendScheme(uri);
+        appendHost(uri);
+        appendPort(uri);
+        appendPath(uri);
+    }
+
+    private void appendScheme(StringBuilder uri) {
+        if (scheme != null) {
+            uri.append(scheme.getScheme()).append(SCHEME_HOST_SEPARATOR);
+        }
+    }
+
+    private void appendHost(StringBuilder uri) {
+        if (host == null) {
+            throw new IllegalStateException("How did you get here in the first place?");
         }
 
-        return path;
+        uri.append(host);
     }
 
-    private String getQueryString() {
-        if (parameterList.isEmpty()) {
-            return EMPTY_STRING;
+    private void appendPort(StringBuilder uri) {
+        if (port != null) {
+            uri.append(':').append(port.intValue());
         }
+    }
 
-        return parametersToQueryString();
+    private void appendPath(StringBuilder uri) {
+        if (!StringUtils.isNullorEmpty(path)) {
+            uri.append(path);
+        }
     }
 
-    private String parametersToQueryString() {
+    private void appendQueryString(StringBuilder uri) {
         if (parameterList.isEmpty()) {
-            return "";
+            return;
         }
 
-        StringBuilder queryString = new StringBuilder(URI_QUERIABLE_OBJECT_SEPARATOR);
-        for (Parameter parameter : parameterList.getParameterList()) {
-            if (queryString.length() > 1) {
-                queryString.append(PARAMETER_SEPARATOR);
+        uri.append(URI_QUERIABLE_OBJECT_SEPARATOR);
+        int queryStart = uri.length();
+        for (int i = 0; i < parameterList.size(); i++) {
+            QueryParameter parameter = parameterList.get(i);
+            String name = getEncodedName(parameter);
+            int valueCount = getValueCount(parameter);
+            for (int j = 0; j < valueCount; j++) {
+                if (uri.length() > queryStart) {
+                    uri.append(PARAMETER_SEPARATOR);
+                }
+                appendNameValuePair(uri, parameter, name, j);
             }
+        }
+    }
 
-            queryString.append(getNameValuePair(parameter));
+    private String getEncodedName(QueryParameter parameter) {
+        String name = parameter.getName();
+        if (StringUtils.isNullorEmpty(name)) {
+            throw new IllegalArgumentException("Query parameter name cannot be empty!");
         }
 
-        return queryString.toString();
+        return encode(name);
     }
 
-    private String getNameValuePair(Parameter parameter) {
-        if (StringUtils.isNullorEmpty(parameter.getName())) {
-            throw new IllegalArgumentException("Query parameter name cannot be empty!");
-        } else if (parameter.getValue().length == 0) {
-            return String.format("%s%s%s", encode(parameter.getName()), NAME_VALUE_SEPARATOR, "");
-        } else {
-            StringBuilder nameValuePairs = new StringBuilder();
-            for (String value : parameter.getValue()) {
-                if (nameValuePairs.length() > 1) {
-                    nameValuePairs.append(PARAMETER_SEPARATOR);
-                }
-                nameValuePairs.append(String.format("%s%s%s", encode(parameter.getName()), NAME_VALUE_SEPARATOR, encode(value)));
-            }
+    /**
+     * Number of name=value pairs written for parameter, a parameter without values is written as "name=".
+     */
+    private int getValueCount(QueryParameter parameter) {
+        return Math.max(parameter.getValueCount(), 1);
+    }
 
-            return nameValuePairs.toString();
+    private void appendNameValuePair(StringBuilder uri, QueryParameter parameter, String encodedName, int valueIndex) {
+        uri.append(encodedName).append(NAME_VALUE_SEPARATOR);
+        if (parameter.getValueCount() > 0) {
+            parameter.appendValue(uri, valueIndex, charset);
         }
     }
 
     private String encode(String value) {
-        if (value == null) {
-            return EMPTY_STRING;
-        }
-        if (charset == null) {
-            return value;
-        }
-
-        try {
-            return URLEncoder.encode(value, charset);
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
+        return StringUtils.encode(value, charset);
     }
 }
@@ -16,6 +16,8 @@ import static com.dejankos.builder.Constant.*;
 
 public final class URIParser {
 
+    private static final int MAX_PORT = 65535;
+
     /**
      * Parse from string.
      * Default "UTF-8" encoding will be used.
@@ -57,10 +59,12 @@ public final class URIParser {
 
     /**
      * Parse from URI.
+     * Host is lowercased, trailing dots are removed and IDN hosts are converted to punycode.
      *
      * @param uri URI uri
      * @param enc String encoding
      * @return ParsedURI
+     * @throws IllegalArgumentException if the port is greater than 65535
      */
     public static ParsedURI parseFromURI(URI uri, String enc) {
         String scheme = uri.getScheme();
@@ -69,6 +73,22 @@ public final class URIParser {
         String path = uri.getPath();
         String query = uri.getQuery();
 
+        if (host == null && uri.getAuthority() != null) {
+            // registry based authority, e.g. an IDN host java.net.URI doesn't accept as server authority
+            String authority = uri.getAuthority();
+            int hostStart = authority.lastIndexOf('@') + 1;
+            int portSeparator = authority.lastIndexOf(':');
+            if (portSeparator > hostStart && isPort(authority, portSeparator + 1)) {
+                host = authority.substring(hostStart, portSeparator);
+                port = portSeparator + 1 < authority.length() ? parsePort(authority.substring(portSeparator + 1)) : -1;
+            } else {
+                host = authority.substring(hostStart);
+            }
+        }
+        host = HostNormalizer.normalize(host);
+        if (port > MAX_PORT) {
+            throw new IllegalArgumentException("Invalid port " + port + "!");
+        }
 
         return new ParsedURI(UriScheme.valueOf(scheme.toUpperCase()),
                 host,
@@ -77,7 +97,26 @@ public final class URIParser {
                 getParsedQueryString(query, enc));
     }
 
-    private static List<Parameter> getParsedQueryString(String queryString, String enc) {
+    private static boolean isPort(String authority, int start) {
+        for (int i = start; i < authority.length(); i++) {
+            if (authority.charAt(i) < '0' || authority.charAt(i) > '9') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int parsePort(String port) {
+        int value = port.length() > 5 ? MAX_PORT + 1 : Integer.parseInt(port);
+        if (value > MAX_PORT) {
+            throw new IllegalArgumentException("Invalid port " + port + "!");
+        }
+
+        return value;
+    }
+
+    static List<Parameter> getParsedQueryString(String queryString, String enc) {
         if (StringUtils.isNullorEmpty(queryString)) {
             return Collections.EMPTY_LIST;
         }
@@ -88,8 +127,13 @@ public final class URIParser {
         List<Parameter> parameterList = new LinkedList<>();
         String[] pairs = queryString.split(PARAMETER_SEPARATOR);
         for (String pair : pairs) {
-            String[] nameValuePair = pair.split(NAME_VALUE_SEPARATOR);
-            parameterList.add(new Parameter(decode(nameValuePair[0], enc), decode(nameValuePair[1], enc)));
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf(NAME_VALUE_SEPARATOR);
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? EMPTY_STRING : pair.substring(separator + 1);
+            parameterList.add(new Parameter(decode(name, enc), decode(value, enc)));
         }
 
         return parameterList;
@@ -0,0 +1,252 @@
+package com.dejankos.builder;
+
+import com.dejankos.model.Parameter;
+import com.dejankos.model.ParsedURI;
+import com.dejankos.uri.UriScheme;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+
+import static com.dejankos.builder.Constant.*;
+
+public final class URIResolver {
+
+    private static final Charset UTF_8 = Charset.forName(DEFAULT_ENCODING);
+
+    /**
+     * Resolve reference against base as in RFC 3986 section 5.2.
+     * Default "UTF-8" encoding will be used for the query string.
+     * @see #resolve(ParsedURI, CharSequence, String)
+     *
+     * @param base ParsedURI base
+     * @param ref reference, e.g. "../a", "?page=2", "//host/path" or an absolute URI
+     * @return ParsedURI resolved URI
+     */
+    public static ParsedURI resolve(ParsedURI base, CharSequence ref) {
+        return resolve(base, ref, DEFAULT_ENCODING);
+    }
+
+    /**
+     * Resolve reference against base as in RFC 3986 section 5.2, including dot segment removal.
+     * <P>
+     *
+     * The reference is scanned once and the already parsed base components are reused,
+     * the base parameter list is shared when the reference has no path and no query.
+     * Paths are merged and dot segments removed on the encoded reference, so "%2F" and "%2E" never act
+     * as separators or dot segments, and the result is percent decoded like ParsedURI paths.
+     * The fragment is dropped.
+     *
+     * @param base ParsedURI base
+     * @param ref reference, e.g. "../a", "?page=2", "//host/path" or an absolute URI
+     * @param enc String query string encoding
+     * @return ParsedURI resolved URI
+     * @throws IllegalArgumentException if the reference has an unsupported scheme or is malformed
+     */
+    public static ParsedURI resolve(ParsedURI base, CharSequence ref, String enc) {
+        int length = ref.length();
+        int fragmentStart = indexOf(ref, '#', 0, length);
+        int queryStart = indexOf(ref, '?', 0, fragmentStart);
+        int pathEnd = queryStart;
+        String query = queryStart < fragmentStart ? ref.subSequence(queryStart + 1, fragmentStart).toString() : null;
+
+        int position = 0;
+        UriScheme scheme = base.getScheme();
+        int schemeEnd = schemeEnd(ref, pathEnd);
+        if (schemeEnd > 0) {
+            scheme = UriScheme.valueOf(ref.subSequence(0, schemeEnd).toString().toUpperCase(Locale.ROOT));
+            position = schemeEnd + 1;
+        }
+
+        String host = base.getHost();
+        Integer port = base.getPort();
+        boolean hasAuthority = startsWithSlashes(ref, position, pathEnd);
+        if (hasAuthority) {
+            int authorityEnd = indexOf(ref, '/', position + 2, pathEnd);
+            int hostStart = lastIndexOf(ref, '@', position + 2, authorityEnd) + 1;
+            if (hostStart == 0) {
+                hostStart = position + 2;
+            }
+
+            int hostEnd = hostStart < authorityEnd && ref.charAt(hostStart) == '['
+                    ? Math.min(indexOf(ref, ']', hostStart, authorityEnd) + 1, authorityEnd)
+                    : indexOf(ref, ':', hostStart, authorityEnd);
+            host = HostNormalizer.normalize(ref.subSequence(hostStart, hostEnd).toString());
+            port = hostEnd + 1 < authorityEnd ? parsePort(ref, hostEnd + 1, authorityEnd) : null;
+            position = authorityEnd;
+        } else if (schemeEnd > 0) {
+            throw new IllegalArgumentException("Absolute reference without authority: " + ref);
+        }
+
+        String path;
+        List<Parameter> parameters;
+        if (hasAuthority || position < pathEnd && ref.charAt(position) == '/') {
+            path = decodePath(removeDotSegments(ref.subSequence(position, pathEnd).toString()));
+            parameters = parseQuery(query, enc);
+        } else if (position == pathEnd) {
+            path = base.getPath();
+            parameters = query != null ? parseQuery(query, enc) : base.getParameterList();
+        } else {
+            path = decodePath(removeDotSegments(merge(base.getPath(), ref, position, pathEnd)));
+            parameters = parseQuery(query, enc);
+        }
+
+        return new ParsedURI(scheme, host, path, port, parameters);
+    }
+
+    /**
+     * Remove "." and ".." segments as in RFC 3986 section 5.2.4.
+     */
+    static String removeDotSegments(String path) {
+        if (path.indexOf('.') < 0) {
+            return path;
+        }
+
+        int length = path.length();
+        StringBuilder out = new StringBuilder(length);
+        int[] segmentStarts = new int[length + 1];
+        int depth = 0;
+
+        int position = 0;
+        if (path.startsWith("/")) {
+            out.append('/');
+            position = 1;
+        }
+        while (true) {
+            int end = path.indexOf('/', position);
+            boolean last = end < 0;
+            if (last) {
+                end = length;
+            }
+
+            if (isSegment(path, position, end, ".")) {
+                // dropped, out already ends with "/" or is empty
+            } else if (isSegment(path, position, end, "..")) {
+                if (depth > 0) {
+                    out.setLength(segmentStarts[--depth]);
+                }
+            } else {
+                segmentStarts[depth++] = out.length();
+                out.append(path, position, end);
+                if (!last) {
+                    out.append('/');
+                }
+            }
+
+            if (last) {
+                return out.toString();
+            }
+            position = end + 1;
+        }
+    }
+
+    /**
+     * Merge base directory with encoded ref[start, end), "%" in the decoded base path is escaped
+     * so the merged path can be decoded as a whole.
+     */
+    private static String merge(String basePath, CharSequence ref, int start, int end) {
+        String directory = StringUtils.isNullorEmpty(basePath) ? "/" : basePath.substring(0, basePath.lastIndexOf('/') + 1);
+
+        StringBuilder merged = new StringBuilder(directory.length() + end - start);
+        for (int i = 0; i < directory.length(); i++) {
+            char c = directory.charAt(i);
+            if (c == '%') {
+                merged.append("%25");
+            } else {
+                merged.append(c);
+            }
+        }
+
+        return merged.append(ref, start, end).toString();
+    }
+
+    private static List<Parameter> parseQuery(String query, String enc) {
+        return URIParser.getParsedQueryString(query, enc);
+    }
+
+    private static String decodePath(String path) {
+        if (path.indexOf('%') < 0) {
+            return path;
+        }
+
+        int end = path.length();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(end);
+        int position = 0;
+        while (position < end) {
+            if (path.charAt(position) == '%') {
+                int high = position + 2 < end ? Character.digit(path.charAt(position + 1), 16) : -1;
+                int low = position + 2 < end ? Character.digit(path.charAt(position + 2), 16) : -1;
+                if (high < 0 || low < 0) {
+                    throw new IllegalArgumentException("Malformed escape in path: " + path);
+                }
+                bytes.write((high << 4) | low);
+                position += 3;
+            } else {
+                int runEnd = indexOf(path, '%', position, end);
+                byte[] run = path.substring(position, runEnd).getBytes(UTF_8);
+                bytes.write(run, 0, run.length);
+                position = runEnd;
+            }
+        }
+
+        return new String(bytes.toByteArray(), UTF_8);
+    }
+
+    private static Integer parsePort(CharSequence ref, int start, int end) {
+        int port = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(ref.charAt(i), 10);
+            port = port * 10 + digit;
+            if (digit < 0 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port in reference: " + ref);
+            }
+        }
+
+        return port;
+    }
+
+    private static int schemeEnd(CharSequence ref, int end) {
+        for (int i = 0; i < end; i++) {
+            char c = ref.charAt(i);
+            if (c == ':') {
+                return i;
+            }
+            boolean schemeChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (i > 0 && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'));
+            if (!schemeChar) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isSegment(String path, int start, int end, String segment) {
+        return end - start == segment.length() && path.startsWith(segment, start);
+    }
+
+    private static boolean startsWithSlashes(CharSequence ref, int position, int end) {
+        return position + 1 < end && ref.charAt(position) == '/' && ref.charAt(position + 1) == '/';
+    }
+
+    private static int indexOf(CharSequence value, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    private static int lastIndexOf(CharSequence value, char c, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
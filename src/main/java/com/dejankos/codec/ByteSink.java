@@ -0,0 +1,40 @@
+package com.dejankos.codec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+abstract class ByteSink {
+
+    abstract void writeByte(int value) throws IOException;
+
+    abstract void write(byte[] bytes) throws IOException;
+
+    static ByteSink of(final DataOutput out) {
+        return new ByteSink() {
+            @Override
+            void writeByte(int value) throws IOException {
+                out.writeByte(value);
+            }
+
+            @Override
+            void write(byte[] bytes) throws IOException {
+                out.write(bytes);
+            }
+        };
+    }
+
+    static ByteSink of(final ByteBuffer buffer) {
+        return new ByteSink() {
+            @Override
+            void writeByte(int value) {
+                buffer.put((byte) value);
+            }
+
+            @Override
+            void write(byte[] bytes) {
+                buffer.put(bytes);
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.dejankos.codec;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+abstract class ByteSource {
+
+    static final long UNKNOWN_REMAINING = Long.MAX_VALUE;
+
+    abstract int readByte() throws IOException;
+
+    abstract void readFully(byte[] bytes) throws IOException;
+
+    /**
+     * @return bytes left to read or UNKNOWN_REMAINING for streams
+     */
+    abstract long remaining();
+
+    static ByteSource of(final DataInput in) {
+        return new ByteSource() {
+            @Override
+            int readByte() throws IOException {
+                return in.readUnsignedByte();
+            }
+
+            @Override
+            void readFully(byte[] bytes) throws IOException {
+                in.readFully(bytes);
+            }
+
+            @Override
+            long remaining() {
+                return UNKNOWN_REMAINING;
+            }
+        };
+    }
+
+    static ByteSource of(final ByteBuffer buffer) {
+        return new ByteSource() {
+            @Override
+            int readByte() throws IOException {
+                if (!buffer.hasRemaining()) {
+                    throw new EOFException("Unexpected end of buffer");
+                }
+                return buffer.get() & 0xFF;
+            }
+
+            @Override
+            void readFully(byte[] bytes) throws IOException {
+                if (buffer.remaining() < bytes.length) {
+                    throw new EOFException("Unexpected end of buffer");
+                }
+                buffer.get(bytes);
+            }
+
+            @Override
+            long remaining() {
+                return buffer.remaining();
+            }
+        };
+    }
+}
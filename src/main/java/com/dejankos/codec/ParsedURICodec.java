@@ -0,0 +1,371 @@
+package com.dejankos.codec;
+
+import com.dejankos.model.Parameter;
+import com.dejankos.model.ParsedURI;
+import com.dejankos.uri.UriScheme;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for ParsedURI and Parameter.
+ * <P>
+ *
+ * Single record layout:
+ * - scheme byte (0 for none, otherwise UriScheme ordinal + 1)
+ * - host, path
+ * - port as varint (0 for none, otherwise port + 1)
+ * - parameter count as varint, then name, value count + 1 (0 for null) and values for each parameter
+ * <P>
+ *
+ * Strings are written as varint UTF-8 byte length + 1 (0 for null) followed by the bytes.
+ * A batch starts with a version byte, a flags byte and a varint record count. When the
+ * dictionary flag is set, hosts and parameter names are written once up front and records
+ * refer to them by varint index + 1.
+ * <P>
+ *
+ * Decoding checks lengths and counts against the remaining input (or a 16 MB string cap for streams)
+ * and reports corrupt input as IOException.
+ * New UriScheme constants must be appended, the scheme byte depends on the ordinal.
+ */
+public final class ParsedURICodec {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BATCH_VERSION = 1;
+    private static final int FLAG_DICTIONARY = 1;
+
+    private static final int MAX_STRING_BYTES = 1 << 24;
+
+    private static final UriScheme[] SCHEMES = UriScheme.values();
+
+    private ParsedURICodec() {
+    }
+
+    /**
+     * Encode a single ParsedURI.
+     *
+     * @param uri ParsedURI
+     * @param out DataOutput
+     * @throws IOException on write failure
+     */
+    public static void encode(ParsedURI uri, DataOutput out) throws IOException {
+        writeRecord(uri, ByteSink.of(out), null, null);
+    }
+
+    /**
+     * Encode a single ParsedURI into buffer.
+     *
+     * @param uri ParsedURI
+     * @param buffer ByteBuffer with enough remaining space
+     */
+    public static void encode(ParsedURI uri, ByteBuffer buffer) {
+        try {
+            writeRecord(uri, ByteSink.of(buffer), null, null);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Decode a single ParsedURI written by encode.
+     *
+     * @param in DataInput
+     * @return ParsedURI
+     * @throws IOException on read failure or malformed input
+     */
+    public static ParsedURI decode(DataInput in) throws IOException {
+        return readRecord(ByteSource.of(in), null, null);
+    }
+
+    /**
+     * Decode a single ParsedURI written by encode.
+     *
+     * @param buffer ByteBuffer positioned at the record
+     * @return ParsedURI
+     * @throws IOException on truncated or malformed input
+     */
+    public static ParsedURI decode(ByteBuffer buffer) throws IOException {
+        return readRecord(ByteSource.of(buffer), null, null);
+    }
+
+    /**
+     * Encode a batch of ParsedURI.
+     *
+     * @param uris ParsedURI batch
+     * @param out DataOutput
+     * @param useDictionary write hosts and parameter names once per batch
+     * @throws IOException on write failure
+     */
+    public static void encodeBatch(Collection<ParsedURI> uris, DataOutput out, boolean useDictionary) throws IOException {
+        writeBatch(uris, ByteSink.of(out), useDictionary);
+    }
+
+    /**
+     * Encode a batch of ParsedURI into buffer.
+     *
+     * @param uris ParsedURI batch
+     * @param buffer ByteBuffer with enough remaining space
+     * @param useDictionary write hosts and parameter names once per batch
+     */
+    public static void encodeBatch(Collection<ParsedURI> uris, ByteBuffer buffer, boolean useDictionary) {
+        try {
+            writeBatch(uris, ByteSink.of(buffer), useDictionary);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Decode a batch written by encodeBatch.
+     *
+     * @param in DataInput
+     * @return ParsedURI list
+     * @throws IOException on read failure or malformed input
+     */
+    public static List<ParsedURI> decodeBatch(DataInput in) throws IOException {
+        return readBatch(ByteSource.of(in));
+    }
+
+    /**
+     * Decode a batch written by encodeBatch.
+     *
+     * @param buffer ByteBuffer positioned at the batch
+     * @return ParsedURI list
+     * @throws IOException on truncated or malformed input
+     */
+    public static List<ParsedURI> decodeBatch(ByteBuffer buffer) throws IOException {
+        return readBatch(ByteSource.of(buffer));
+    }
+
+    private static void writeBatch(Collection<ParsedURI> uris, ByteSink sink, boolean useDictionary) throws IOException {
+        sink.writeByte(BATCH_VERSION);
+        sink.writeByte(useDictionary ? FLAG_DICTIONARY : 0);
+        writeVarInt(sink, uris.size());
+
+        Map<String, Integer> hosts = null;
+        Map<String, Integer> names = null;
+        if (useDictionary) {
+            hosts = new HashMap<>();
+            names = new HashMap<>();
+            for (ParsedURI uri : uris) {
+                addToDictionary(hosts, uri.getHost());
+                for (Parameter parameter : parameters(uri)) {
+                    addToDictionary(names, parameter.getName());
+                }
+            }
+            writeDictionary(sink, hosts);
+            writeDictionary(sink, names);
+        }
+
+        for (ParsedURI uri : uris) {
+            writeRecord(uri, sink, hosts, names);
+        }
+    }
+
+    private static List<ParsedURI> readBatch(ByteSource source) throws IOException {
+        int version = source.readByte();
+        if (version != BATCH_VERSION) {
+            throw new IOException("Unsupported batch version " + version);
+        }
+        int flags = source.readByte();
+        int count = readCount(source);
+
+        String[] hosts = null;
+        String[] names = null;
+        if ((flags & FLAG_DICTIONARY) != 0) {
+            hosts = readDictionary(source);
+            names = readDictionary(source);
+        }
+
+        List<ParsedURI> uris = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            uris.add(readRecord(source, hosts, names));
+        }
+
+        return uris;
+    }
+
+    private static void addToDictionary(Map<String, Integer> dictionary, String value) {
+        if (value != null && !dictionary.containsKey(value)) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    private static void writeDictionary(ByteSink sink, Map<String, Integer> dictionary) throws IOException {
+        String[] entries = new String[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            entries[entry.getValue()] = entry.getKey();
+        }
+
+        writeVarInt(sink, entries.length);
+        for (String entry : entries) {
+            writeString(sink, entry);
+        }
+    }
+
+    private static String[] readDictionary(ByteSource source) throws IOException {
+        int count = readCount(source);
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(readString(source));
+        }
+
+        return entries.toArray(new String[entries.size()]);
+    }
+
+    private static void writeRecord(ParsedURI uri, ByteSink sink, Map<String, Integer> hosts, Map<String, Integer> names) throws IOException {
+        sink.writeByte(uri.getScheme() == null ? 0 : uri.getScheme().ordinal() + 1);
+        writeString(sink, uri.getHost(), hosts);
+        writeString(sink, uri.getPath());
+        writeVarInt(sink, uri.getPort() == null ? 0 : uri.getPort() + 1);
+
+        List<Parameter> parameters = parameters(uri);
+        writeVarInt(sink, parameters.size());
+        for (Parameter parameter : parameters) {
+            writeString(sink, parameter.getName(), names);
+
+            String[] values = parameter.getValue();
+            if (values == null) {
+                writeVarInt(sink, 0);
+                continue;
+            }
+            writeVarInt(sink, values.length + 1);
+            for (String value : values) {
+                writeString(sink, value);
+            }
+        }
+    }
+
+    private static ParsedURI readRecord(ByteSource source, String[] hosts, String[] names) throws IOException {
+        int schemeCode = source.readByte();
+        if (schemeCode > SCHEMES.length) {
+            throw new IOException("Unknown scheme code " + schemeCode);
+        }
+        UriScheme scheme = schemeCode == 0 ? null : SCHEMES[schemeCode - 1];
+        String host = readString(source, hosts);
+        String path = readString(source);
+        int port = readVarInt(source);
+
+        int parameterCount = readCount(source);
+        List<Parameter> parameters = new ArrayList<>();
+        for (int i = 0; i < parameterCount; i++) {
+            String name = readString(source, names);
+
+            int valueCount = readCount(source);
+            String[] values = null;
+            if (valueCount > 0) {
+                List<String> valueList = new ArrayList<>();
+                for (int j = 0; j < valueCount - 1; j++) {
+                    valueList.add(readString(source));
+                }
+                values = valueList.toArray(new String[valueList.size()]);
+            }
+            parameters.add(new Parameter(name, values));
+        }
+
+        return new ParsedURI(scheme, host, path, port == 0 ? null : port - 1, parameters);
+    }
+
+    private static List<Parameter> parameters(ParsedURI uri) {
+        List<Parameter> parameters = uri.getParameterList();
+        if (parameters == null) {
+            return Collections.emptyList();
+        }
+
+        return parameters;
+    }
+
+    private static void writeString(ByteSink sink, String value, Map<String, Integer> dictionary) throws IOException {
+        if (dictionary == null) {
+            writeString(sink, value);
+        } else {
+            writeVarInt(sink, value == null ? 0 : dictionary.get(value) + 1);
+        }
+    }
+
+    private static String readString(ByteSource source, String[] dictionary) throws IOException {
+        if (dictionary == null) {
+            return readString(source);
+        }
+
+        int index = readVarInt(source);
+        if (index > dictionary.length) {
+            throw new IOException("Dictionary index " + index + " out of range");
+        }
+
+        return index == 0 ? null : dictionary[index - 1];
+    }
+
+    private static void writeString(ByteSink sink, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(sink, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(sink, bytes.length + 1);
+        sink.write(bytes);
+    }
+
+    private static String readString(ByteSource source) throws IOException {
+        int length = readVarInt(source);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > source.remaining() || length - 1 > MAX_STRING_BYTES) {
+            throw new IOException("String length " + (length - 1) + " exceeds input");
+        }
+
+        byte[] bytes = new byte[length - 1];
+        source.readFully(bytes);
+
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeVarInt(ByteSink sink, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            sink.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        sink.writeByte(value);
+    }
+
+    /**
+     * Read element count, every element takes at least one byte so a count past the remaining input is corrupt.
+     * Counts are never used to pre-size, streams have no known remaining length.
+     */
+    private static int readCount(ByteSource source) throws IOException {
+        int count = readVarInt(source);
+        if (count > source.remaining()) {
+            throw new IOException("Count " + count + " exceeds input");
+        }
+
+        return count;
+    }
+
+    private static int readVarInt(ByteSource source) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = source.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Negative varint");
+                }
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,164 @@
+package com.dejankos.dedup;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Open addressing (linear probing) table of 128 bit fingerprints in a direct buffer.
+ * An all zero slot is empty, so callers must never store the zero fingerprint.
+ * Guarded by its own read write lock, resized by doubling.
+ */
+final class FingerprintSegment {
+
+    static final int MIN_CAPACITY = 16;
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int SLOT_BYTES = 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer slots;
+    private int capacity;
+    private int size;
+
+    FingerprintSegment(int capacity) {
+        this(ByteBuffer.allocateDirect(capacity * SLOT_BYTES), capacity, 0);
+    }
+
+    private FingerprintSegment(ByteBuffer slots, int capacity, int size) {
+        this.slots = slots;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    boolean add(long high, long low) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(slots, capacity, high, low);
+            if (!isEmpty(slots, slot)) {
+                return false;
+            }
+
+            if (size + 1 > capacity - (capacity >>> 2)) {
+                resize();
+                slot = find(slots, capacity, high, low);
+            }
+            write(slots, slot, high, low);
+            size++;
+
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean contains(long high, long low) {
+        lock.readLock().lock();
+        try {
+            return !isEmpty(slots, find(slots, capacity, high, low));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void writeTo(FileChannel channel) throws IOException {
+        lock.readLock().lock();
+        try {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.putInt(capacity).putInt(size).flip();
+            writeFully(channel, header);
+
+            ByteBuffer content = slots.duplicate();
+            content.clear();
+            writeFully(channel, content);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static FingerprintSegment readFrom(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        readFully(channel, header);
+        header.flip();
+        int capacity = header.getInt();
+        int size = header.getInt();
+        if (Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY || size < 0 || size >= capacity) {
+            throw new IOException("Corrupted segment header");
+        }
+
+        ByteBuffer slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        readFully(channel, slots);
+
+        return new FingerprintSegment(slots, capacity, size);
+    }
+
+    private void resize() {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Segment is full, create the set with more segments");
+        }
+
+        int newCapacity = capacity << 1;
+        ByteBuffer newSlots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        for (int slot = 0; slot < capacity; slot++) {
+            if (!isEmpty(slots, slot)) {
+                long high = slots.getLong(slot * SLOT_BYTES);
+                long low = slots.getLong(slot * SLOT_BYTES + 8);
+                write(newSlots, find(newSlots, newCapacity, high, low), high, low);
+            }
+        }
+
+        slots = newSlots;
+        capacity = newCapacity;
+    }
+
+    /**
+     * @return slot holding the fingerprint or the empty slot where it belongs
+     */
+    private static int find(ByteBuffer slots, int capacity, long high, long low) {
+        int mask = capacity - 1;
+        int slot = (int) low & mask;
+        while (true) {
+            long slotHigh = slots.getLong(slot * SLOT_BYTES);
+            long slotLow = slots.getLong(slot * SLOT_BYTES + 8);
+            if ((slotHigh == high && slotLow == low) || (slotHigh == 0 && slotLow == 0)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean isEmpty(ByteBuffer slots, int slot) {
+        return slots.getLong(slot * SLOT_BYTES) == 0 && slots.getLong(slot * SLOT_BYTES + 8) == 0;
+    }
+
+    private static void write(ByteBuffer slots, int slot, long high, long low) {
+        slots.putLong(slot * SLOT_BYTES, high);
+        slots.putLong(slot * SLOT_BYTES + 8, low);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dejankos.dedup;
+
+/**
+ * Incremental MurmurHash3 x64 128 bit over a byte stream.
+ * Chars are fed as two little endian bytes, ints as four.
+ */
+final class Murmur3Hasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    private long k1;
+    private long k2;
+    private int pending;
+    private long length;
+
+    void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+
+        putInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            putChar(value.charAt(i));
+        }
+    }
+
+    void putChar(char value) {
+        putByte(value);
+        putByte(value >>> 8);
+    }
+
+    void putInt(int value) {
+        putByte(value);
+        putByte(value >>> 8);
+        putByte(value >>> 16);
+        putByte(value >>> 24);
+    }
+
+    private void putByte(int value) {
+        long b = value & 0xFFL;
+        if (pending < 8) {
+            k1 |= b << (pending << 3);
+        } else {
+            k2 |= b << ((pending - 8) << 3);
+        }
+        length++;
+
+        if (++pending == 16) {
+            mixBlock();
+            k1 = 0;
+            k2 = 0;
+            pending = 0;
+        }
+    }
+
+    private void mixBlock() {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    /**
+     * @return high 64 bits, call low() after for the other half
+     */
+    long high() {
+        finish();
+        return h1;
+    }
+
+    long low() {
+        return h2;
+    }
+
+    private void finish() {
+        if (pending > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (pending > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+    }
+
+    private static long mixK1(long k) {
+        k *= C1;
+        k = Long.rotateLeft(k, 31);
+        k *= C2;
+        return k;
+    }
+
+    private static long mixK2(long k) {
+        k *= C2;
+        k = Long.rotateLeft(k, 33);
+        k *= C1;
+        return k;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,121 @@
+package com.dejankos.dedup;
+
+import com.dejankos.model.Parameter;
+import com.dejankos.model.ParsedURI;
+import com.dejankos.uri.UriScheme;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Feeds the canonical form of a ParsedURI into a hasher.
+ * <P>
+ *
+ * Canonical form:
+ * - host lowercased, trailing dots removed
+ * - default port (80 for http, 443 for https) dropped
+ * - empty path is "/"
+ * - parameters flattened to name value pairs and sorted by name, values of one name keep their order
+ * - missing values are empty
+ * <P>
+ *
+ * Every field is length prefixed, so values containing separators can't collide.
+ */
+final class URICanonicalizer {
+
+    private static final Comparator<Parameter> BY_NAME = new Comparator<Parameter>() {
+        @Override
+        public int compare(Parameter first, Parameter second) {
+            return first.getName().compareTo(second.getName());
+        }
+    };
+
+    private static final String EMPTY_VALUE = "";
+
+    private URICanonicalizer() {
+    }
+
+    static void canonicalize(ParsedURI uri, Murmur3Hasher hasher) {
+        UriScheme scheme = uri.getScheme();
+        hasher.putString(scheme == null ? null : scheme.getScheme());
+        putHost(uri.getHost(), hasher);
+        hasher.putInt(canonicalPort(scheme, uri.getPort()));
+
+        String path = uri.getPath();
+        hasher.putString(path == null || path.isEmpty() ? "/" : path);
+
+        putParameters(uri.getParameterList(), hasher);
+    }
+
+    private static void putHost(String host, Murmur3Hasher hasher) {
+        if (host == null) {
+            hasher.putInt(-1);
+            return;
+        }
+
+        int end = host.length();
+        while (end > 0 && host.charAt(end - 1) == '.') {
+            end--;
+        }
+
+        hasher.putInt(end);
+        for (int i = 0; i < end; i++) {
+            char c = host.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            } else if (c > 127) {
+                c = Character.toLowerCase(c);
+            }
+            hasher.putChar(c);
+        }
+    }
+
+    private static int canonicalPort(UriScheme scheme, Integer port) {
+        if (port == null) {
+            return -1;
+        }
+        if ((scheme == UriScheme.HTTP && port == 80) || (scheme == UriScheme.HTTPS && port == 443)) {
+            return -1;
+        }
+
+        return port;
+    }
+
+    private static void putParameters(List<Parameter> parameterList, Murmur3Hasher hasher) {
+        if (parameterList == null || parameterList.isEmpty()) {
+            hasher.putInt(0);
+            return;
+        }
+
+        Parameter[] parameters = parameterList.toArray(new Parameter[parameterList.size()]);
+        Arrays.sort(parameters, BY_NAME);
+
+        int pairs = 0;
+        for (Parameter parameter : parameters) {
+            pairs += valueCount(parameter);
+        }
+
+        hasher.putInt(pairs);
+        for (Parameter parameter : parameters) {
+            String[] values = parameter.getValue();
+            if (values == null || values.length == 0) {
+                hasher.putString(parameter.getName());
+                hasher.putString(EMPTY_VALUE);
+                continue;
+            }
+            for (String value : values) {
+                hasher.putString(parameter.getName());
+                hasher.putString(value == null ? EMPTY_VALUE : value);
+            }
+        }
+    }
+
+    /**
+     * A parameter without values is written as one name with empty value.
+     */
+    private static int valueCount(Parameter parameter) {
+        String[] values = parameter.getValue();
+        return values == null || values.length == 0 ? 1 : values.length;
+    }
+}
@@ -0,0 +1,209 @@
+package com.dejankos.dedup;
+
+import com.dejankos.builder.URIBuilder;
+import com.dejankos.model.ParsedURI;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Set of already seen URIs kept off heap.
+ * <P>
+ *
+ * Each URI is canonicalized (see URICanonicalizer) and reduced to a 128 bit MurmurHash3 fingerprint,
+ * which is stored in one of a fixed number of open addressing segments backed by direct buffers.
+ * Segments are locked independently and grow on their own, heap usage doesn't depend on the set size.
+ * <P>
+ *
+ * Two different URIs share a fingerprint with negligible probability (about n^2 / 2^129),
+ * such a collision makes the second URI look already seen.
+ */
+public final class URISeenSet {
+
+    private static final int DEFAULT_SEGMENTS = 64;
+    private static final long DEFAULT_EXPECTED_SIZE = 1 << 16;
+
+    private static final long FILE_MAGIC = 0x5552495365656e31L;
+
+    private final FingerprintSegment[] segments;
+    private final int segmentShift;
+
+    private URISeenSet(FingerprintSegment[] segments) {
+        this.segments = segments;
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segments.length);
+    }
+
+    /**
+     * Create an empty set with default sizing.
+     *
+     * @return URISeenSet new instance
+     */
+    public static URISeenSet create() {
+        return create(DEFAULT_EXPECTED_SIZE, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Create an empty set.
+     *
+     * @param expectedSize expected number of URIs, the set grows past it when needed
+     * @param segmentCount number of independently locked segments, power of two
+     * @return URISeenSet new instance
+     */
+    public static URISeenSet create(long expectedSize, int segmentCount) {
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a power of two!");
+        }
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size can't be negative!");
+        }
+
+        long perSegment = expectedSize / segmentCount * 4 / 3 + 1;
+        int capacity = FingerprintSegment.MIN_CAPACITY;
+        while (capacity < perSegment && capacity < FingerprintSegment.MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+
+        FingerprintSegment[] segments = new FingerprintSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new FingerprintSegment(capacity);
+        }
+
+        return new URISeenSet(segments);
+    }
+
+    /**
+     * Add URI.
+     *
+     * @param uri ParsedURI
+     * @return true if URI wasn't seen before
+     */
+    public boolean add(ParsedURI uri) {
+        Murmur3Hasher hasher = fingerprint(uri);
+        long high = hasher.high();
+        long low = nonZero(high, hasher.low());
+
+        return segment(high).add(high, low);
+    }
+
+    /**
+     * Add URI.
+     *
+     * @param builder URIBuilder
+     * @return true if URI wasn't seen before
+     */
+    public boolean add(URIBuilder builder) {
+        return add(builder.toParsedURI());
+    }
+
+    /**
+     * Check if URI was seen.
+     *
+     * @param uri ParsedURI
+     * @return true if URI was added before
+     */
+    public boolean contains(ParsedURI uri) {
+        Murmur3Hasher hasher = fingerprint(uri);
+        long high = hasher.high();
+        long low = nonZero(high, hasher.low());
+
+        return segment(high).contains(high, low);
+    }
+
+    /**
+     * Check if URI was seen.
+     *
+     * @param builder URIBuilder
+     * @return true if URI was added before
+     */
+    public boolean contains(URIBuilder builder) {
+        return contains(builder.toParsedURI());
+    }
+
+    /**
+     * @return number of seen URIs
+     */
+    public long size() {
+        long size = 0;
+        for (FingerprintSegment segment : segments) {
+            size += segment.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Write set to file.
+     * Segments are written one by one, URIs added concurrently may or may not be included.
+     *
+     * @param file File
+     * @throws IOException on write failure
+     */
+    public void save(File file) throws IOException {
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(0);
+            FileChannel channel = output.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(12);
+            header.putLong(FILE_MAGIC).putInt(segments.length).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            for (FingerprintSegment segment : segments) {
+                segment.writeTo(channel);
+            }
+        }
+    }
+
+    /**
+     * Read set written by save.
+     *
+     * @param file File
+     * @return URISeenSet new instance
+     * @throws IOException on read failure or if file isn't a saved set
+     */
+    public static URISeenSet load(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            FileChannel channel = input.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(12);
+            FingerprintSegment.readFully(channel, header);
+            header.flip();
+            if (header.getLong() != FILE_MAGIC) {
+                throw new IOException("Not a URISeenSet file: " + file);
+            }
+            int segmentCount = header.getInt();
+            if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+                throw new IOException("Corrupted segment count " + segmentCount);
+            }
+
+            FingerprintSegment[] segments = new FingerprintSegment[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = FingerprintSegment.readFrom(channel);
+            }
+
+            return new URISeenSet(segments);
+        }
+    }
+
+    private FingerprintSegment segment(long high) {
+        return segments.length == 1 ? segments[0] : segments[(int) (high >>> segmentShift)];
+    }
+
+    private static Murmur3Hasher fingerprint(ParsedURI uri) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        URICanonicalizer.canonicalize(uri, hasher);
+
+        return hasher;
+    }
+
+    /**
+     * The all zero fingerprint marks an empty slot.
+     */
+    private static long nonZero(long high, long low) {
+        return high == 0 && low == 0 ? 1 : low;
+    }
+}
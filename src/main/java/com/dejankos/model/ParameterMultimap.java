@@ -0,0 +1,101 @@
+package com.dejankos.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable name to values view of a parameter list.
+ * Repeated names keep all their values in query string order.
+ * <P>
+ *
+ * Instances are safe to share between threads.
+ */
+public final class ParameterMultimap {
+
+    private final Map<String, List<String>> parameters;
+
+    /**
+     * @param parameterList parameters, null is treated as empty
+     */
+    ParameterMultimap(List<Parameter> parameterList) {
+        Map<String, List<String>> grouped = new LinkedHashMap<>();
+        if (parameterList == null) {
+            parameterList = Collections.emptyList();
+        }
+        for (Parameter parameter : parameterList) {
+            List<String> values = grouped.get(parameter.getName());
+            if (values == null) {
+                values = new ArrayList<>(1);
+                grouped.put(parameter.getName(), values);
+            }
+            if (parameter.getValue() != null) {
+                Collections.addAll(values, parameter.getValue());
+            }
+        }
+
+        for (Map.Entry<String, List<String>> entry : grouped.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.parameters = Collections.unmodifiableMap(grouped);
+    }
+
+    /**
+     * Get first value of parameter.
+     *
+     * @param name Parameter name
+     * @return first value or null if parameter doesn't exist or has no value
+     */
+    public String getFirst(String name) {
+        List<String> values = parameters.get(name);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+
+        return values.get(0);
+    }
+
+    /**
+     * Get all values of parameter, including values of repeated parameters.
+     *
+     * @param name Parameter name
+     * @return unmodifiable value list, empty if parameter doesn't exist
+     */
+    public List<String> getAll(String name) {
+        List<String> values = parameters.get(name);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+
+        return values;
+    }
+
+    /**
+     * Check if parameter exists.
+     *
+     * @param name Parameter name
+     * @return true if at least one parameter with name exists
+     */
+    public boolean contains(String name) {
+        return parameters.containsKey(name);
+    }
+
+    /**
+     * Get parameter names in query string order.
+     *
+     * @return unmodifiable name set
+     */
+    public Set<String> getNames() {
+        return parameters.keySet();
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterMultimap{" +
+                "parameters=" + parameters +
+                '}';
+    }
+}
@@ -16,6 +16,8 @@ public final class ParsedURI implements Serializable{
     private Integer port;
     private List<Parameter> parameterList;
 
+    private transient volatile ParameterMultimap parameterMultimap;
+
     public ParsedURI(UriScheme scheme, String host, String path, Integer port, List<Parameter> parameterList) {
         this.scheme = scheme;
         this.host = host;
@@ -45,7 +47,7 @@ public final class ParsedURI implements Serializable{
     }
     
     public Map<String, String[]> getParameterMap() {
-        if(parameterList.isEmpty()) {
+        if(parameterList == null || parameterList.isEmpty()) {
             return Collections.EMPTY_MAP;
         }
 
@@ -57,6 +59,24 @@ public final class ParsedURI implements Serializable{
         return Collections.unmodifiableMap(parameterMap);
     }
 
+    /**
+     * Get parameters as multimap with constant time lookups by name.
+     * Built on first call and cached, later changes to the parameter list are not reflected.
+     * A null parameter list gives an empty multimap.
+     * @see ParameterMultimap
+     *
+     * @return ParameterMultimap
+     */
+    public ParameterMultimap getParameterMultimap() {
+        ParameterMultimap multimap = parameterMultimap;
+        if (multimap == null) {
+            multimap = new ParameterMultimap(parameterList);
+            parameterMultimap = multimap;
+        }
+
+        return multimap;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
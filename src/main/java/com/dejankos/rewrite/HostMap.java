@@ -0,0 +1,112 @@
+package com.dejankos.rewrite;
+
+import java.util.Map;
+
+/**
+ * Immutable open addressing host to replacement map that can be probed with a character range.
+ * Hosts are matched case insensitive and trailing dots are ignored, so lookups don't need
+ * a lowercased substring.
+ */
+final class HostMap {
+
+    private final String[] hosts;
+    private final String[] replacements;
+    private final int mask;
+    private final int size;
+
+    private HostMap(String[] hosts, String[] replacements, int size) {
+        this.hosts = hosts;
+        this.replacements = replacements;
+        this.mask = hosts.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * @param replacements host to replacement, hosts must be normalized with normalize
+     */
+    static HostMap of(Map<String, String> replacements) {
+        int capacity = 2;
+        while (capacity < replacements.size() * 2) {
+            capacity <<= 1;
+        }
+
+        String[] hosts = new String[capacity];
+        String[] values = new String[capacity];
+        int size = 0;
+        for (Map.Entry<String, String> entry : replacements.entrySet()) {
+            String host = entry.getKey();
+            int slot = hash(host, 0, host.length()) & (capacity - 1);
+            while (hosts[slot] != null && !hosts[slot].equals(host)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (hosts[slot] == null) {
+                size++;
+            }
+            hosts[slot] = host;
+            values[slot] = entry.getValue();
+        }
+
+        return new HostMap(hosts, values, size);
+    }
+
+    /**
+     * Lowercase host and strip trailing dots, the form keys are stored in.
+     */
+    static String normalize(String host) {
+        int end = trimTrailingDots(host, 0, host.length());
+        StringBuilder normalized = new StringBuilder(end);
+        for (int i = 0; i < end; i++) {
+            normalized.append(Character.toLowerCase(host.charAt(i)));
+        }
+
+        return normalized.toString();
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get replacement for host value[start, end).
+     *
+     * @return replacement or null if host is not in the map
+     */
+    String get(CharSequence value, int start, int end) {
+        end = trimTrailingDots(value, start, end);
+        int length = end - start;
+        int slot = hash(value, start, end) & mask;
+        for (String host = hosts[slot]; host != null; host = hosts[slot]) {
+            if (host.length() == length && regionEqualsIgnoreCase(host, value, start)) {
+                return replacements[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return null;
+    }
+
+    private static int trimTrailingDots(CharSequence value, int start, int end) {
+        while (end > start && value.charAt(end - 1) == '.') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean regionEqualsIgnoreCase(String host, CharSequence value, int start) {
+        for (int i = 0; i < host.length(); i++) {
+            if (host.charAt(i) != Character.toLowerCase(value.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence value, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(value.charAt(i));
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,80 @@
+package com.dejankos.rewrite;
+
+import java.util.Collection;
+
+/**
+ * Immutable open addressing string set that can be probed with a character range,
+ * so lookups don't need a substring.
+ */
+final class NameSet {
+
+    private final String[] table;
+    private final int mask;
+    private final int size;
+
+    private NameSet(String[] table, int size) {
+        this.table = table;
+        this.mask = table.length - 1;
+        this.size = size;
+    }
+
+    static NameSet of(Collection<String> names) {
+        int capacity = 2;
+        while (capacity < names.size() * 2) {
+            capacity <<= 1;
+        }
+
+        String[] table = new String[capacity];
+        int size = 0;
+        for (String name : names) {
+            int slot = hash(name, 0, name.length()) & (capacity - 1);
+            while (table[slot] != null && !table[slot].equals(name)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (table[slot] == null) {
+                table[slot] = name;
+                size++;
+            }
+        }
+
+        return new NameSet(table, size);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Check if value[start, end) is in the set.
+     */
+    boolean contains(CharSequence value, int start, int end) {
+        int length = end - start;
+        int slot = hash(value, start, end) & mask;
+        for (String name = table[slot]; name != null; name = table[slot]) {
+            if (name.length() == length && regionEquals(name, value, start)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return false;
+    }
+
+    private static boolean regionEquals(String name, CharSequence value, int start) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != value.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence value, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+}
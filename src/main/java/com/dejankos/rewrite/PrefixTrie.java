@@ -0,0 +1,87 @@
+package com.dejankos.rewrite;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable character trie answering "does any stored prefix start this range".
+ */
+final class PrefixTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final PrefixTrie[] NO_CHILDREN = new PrefixTrie[0];
+
+    private char[] keys = NO_KEYS;
+    private PrefixTrie[] children = NO_CHILDREN;
+    private boolean terminal;
+
+    private PrefixTrie() {
+    }
+
+    static PrefixTrie of(Collection<String> prefixes) {
+        PrefixTrie root = new PrefixTrie();
+        for (String prefix : prefixes) {
+            root.add(prefix);
+        }
+
+        return root;
+    }
+
+    boolean isEmpty() {
+        return !terminal && keys.length == 0;
+    }
+
+    /**
+     * Check if any stored prefix is a prefix of value[start, end).
+     */
+    boolean matchesPrefixOf(CharSequence value, int start, int end) {
+        PrefixTrie node = this;
+        for (int i = start; ; i++) {
+            if (node.terminal) {
+                return true;
+            }
+            if (i == end) {
+                return false;
+            }
+
+            int index = Arrays.binarySearch(node.keys, value.charAt(i));
+            if (index < 0) {
+                return false;
+            }
+            node = node.children[index];
+        }
+    }
+
+    private void add(String prefix) {
+        PrefixTrie node = this;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        node.terminal = true;
+    }
+
+    private PrefixTrie child(char key) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index >= 0) {
+            return children[index];
+        }
+
+        int insertAt = -index - 1;
+        PrefixTrie child = new PrefixTrie();
+
+        char[] newKeys = new char[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertAt);
+        newKeys[insertAt] = key;
+        System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+
+        PrefixTrie[] newChildren = new PrefixTrie[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, insertAt);
+        newChildren[insertAt] = child;
+        System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+        keys = newKeys;
+        children = newChildren;
+
+        return child;
+    }
+}
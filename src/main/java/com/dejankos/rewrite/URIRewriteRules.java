@@ -0,0 +1,128 @@
+package com.dejankos.rewrite;
+
+import com.dejankos.uri.UriScheme;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rule set for URIRewriter.
+ * Collect the rules and compile them once, the compiled URIRewriter is immutable and thread safe.
+ */
+public final class URIRewriteRules {
+
+    private final Set<String> parameterNames = new LinkedHashSet<>();
+    private final List<String> parameterPrefixes = new ArrayList<>();
+    private final Map<String, String> hosts = new HashMap<>();
+
+    private UriScheme scheme;
+    private Integer port;
+    private boolean removePort;
+
+    private URIRewriteRules() {
+    }
+
+    /**
+     * Create an empty rule set.
+     *
+     * @return URIRewriteRules new instance
+     */
+    public static URIRewriteRules create() {
+        return new URIRewriteRules();
+    }
+
+    /**
+     * Remove every parameter with name.
+     *
+     * @param name Parameter name
+     * @return URIRewriteRules instance
+     */
+    public URIRewriteRules removeParameter(String name) {
+        parameterNames.add(requireNotEmpty(name, "Parameter name"));
+        return this;
+    }
+
+    /**
+     * Remove every parameter whose name starts with prefix, e.g. "utm_".
+     *
+     * @param prefix Parameter name prefix
+     * @return URIRewriteRules instance
+     */
+    public URIRewriteRules removeParameterPrefix(String prefix) {
+        parameterPrefixes.add(requireNotEmpty(prefix, "Parameter name prefix"));
+        return this;
+    }
+
+    /**
+     * Replace host, matched case insensitive and ignoring trailing dots.
+     *
+     * @param host Host to replace
+     * @param newHost Replacement host
+     * @return URIRewriteRules instance
+     */
+    public URIRewriteRules replaceHost(String host, String newHost) {
+        hosts.put(requireNotEmpty(HostMap.normalize(requireNotEmpty(host, "Host")), "Host"),
+                requireNotEmpty(newHost, "New host"));
+        return this;
+    }
+
+    /**
+     * Force scheme on URIs with an authority, other URIs such as mailto: keep their scheme.
+     *
+     * @param scheme UriScheme
+     * @return URIRewriteRules instance
+     */
+    public URIRewriteRules setScheme(UriScheme scheme) {
+        this.scheme = scheme;
+        return this;
+    }
+
+    /**
+     * Pin port, an existing port is replaced and a missing one is added.
+     *
+     * @param port Port
+     * @return URIRewriteRules instance
+     */
+    public URIRewriteRules setPort(int port) {
+        this.port = port;
+        this.removePort = false;
+        return this;
+    }
+
+    /**
+     * Remove port.
+     *
+     * @return URIRewriteRules instance
+     */
+    public URIRewriteRules removePort() {
+        this.port = null;
+        this.removePort = true;
+        return this;
+    }
+
+    /**
+     * Compile rules into a single pass rewriter.
+     *
+     * @return URIRewriter
+     */
+    public URIRewriter compile() {
+        return new URIRewriter(NameSet.of(parameterNames),
+                PrefixTrie.of(parameterPrefixes),
+                HostMap.of(hosts),
+                scheme,
+                port,
+                removePort);
+    }
+
+    private static String requireNotEmpty(String value, String what) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(what + " can't be empty!");
+        }
+
+        return value;
+    }
+}
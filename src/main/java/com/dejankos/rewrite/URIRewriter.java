@@ -0,0 +1,214 @@
+package com.dejankos.rewrite;
+
+import com.dejankos.uri.UriScheme;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+/**
+ * Compiled URIRewriteRules.
+ * <P>
+ *
+ * Every input is scanned once and the rewritten URI is written straight to the output,
+ * nothing is parsed into a ParsedURI or rebuilt with URIBuilder.
+ * Parameter names are matched decoded, everything that is kept is copied as is.
+ * The scheme is only forced on URIs with an authority.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class URIRewriter {
+
+    private final NameSet parameterNames;
+    private final PrefixTrie parameterPrefixes;
+    private final HostMap hosts;
+    private final UriScheme scheme;
+    private final Integer port;
+    private final boolean removePort;
+    private final boolean rewritesQuery;
+
+    URIRewriter(NameSet parameterNames, PrefixTrie parameterPrefixes, HostMap hosts,
+                UriScheme scheme, Integer port, boolean removePort) {
+        this.parameterNames = parameterNames;
+        this.parameterPrefixes = parameterPrefixes;
+        this.hosts = hosts;
+        this.scheme = scheme;
+        this.port = port;
+        this.removePort = removePort;
+        this.rewritesQuery = !parameterNames.isEmpty() || !parameterPrefixes.isEmpty();
+    }
+
+    /**
+     * Rewrite URI.
+     *
+     * @param uri URI as string
+     * @return rewritten URI
+     */
+    public String rewrite(CharSequence uri) {
+        StringBuilder out = new StringBuilder(uri.length() + 8);
+        rewrite(uri, out);
+        return out.toString();
+    }
+
+    /**
+     * Rewrite URI and append result to out.
+     *
+     * @param uri URI as string
+     * @param out StringBuilder output
+     */
+    public void rewrite(CharSequence uri, StringBuilder out) {
+        int length = uri.length();
+        int position = 0;
+
+        int schemeEnd = schemeEnd(uri);
+        if (schemeEnd > 0) {
+            if (scheme != null && startsWithSlashes(uri, schemeEnd + 1)) {
+                out.append(scheme.getScheme());
+            } else {
+                out.append(uri, 0, schemeEnd);
+            }
+            out.append(':');
+            position = schemeEnd + 1;
+        } else if (scheme != null && startsWithSlashes(uri, 0)) {
+            out.append(scheme.getScheme()).append(':');
+        }
+
+        if (startsWithSlashes(uri, position)) {
+            out.append("//");
+            int authorityEnd = indexOfAny(uri, position + 2, length, "/?#");
+            appendAuthority(uri, position + 2, authorityEnd, out);
+            position = authorityEnd;
+        }
+
+        int pathEnd = indexOfAny(uri, position, length, "?#");
+        out.append(uri, position, pathEnd);
+        position = pathEnd;
+
+        if (position < length && uri.charAt(position) == '?') {
+            int queryEnd = indexOfAny(uri, position + 1, length, "#");
+            appendQuery(uri, position + 1, queryEnd, out);
+            position = queryEnd;
+        }
+
+        out.append(uri, position, length);
+    }
+
+    private void appendAuthority(CharSequence uri, int start, int end, StringBuilder out) {
+        int hostStart = start;
+        for (int i = end - 1; i >= start; i--) {
+            if (uri.charAt(i) == '@') {
+                hostStart = i + 1;
+                break;
+            }
+        }
+        out.append(uri, start, hostStart);
+
+        int hostEnd;
+        if (hostStart < end && uri.charAt(hostStart) == '[') {
+            hostEnd = indexOfAny(uri, hostStart, end, "]");
+            hostEnd = hostEnd < end ? hostEnd + 1 : end;
+        } else {
+            hostEnd = indexOfAny(uri, hostStart, end, ":");
+        }
+        appendHost(uri, hostStart, hostEnd, out);
+
+        if (removePort) {
+            return;
+        }
+        if (port != null) {
+            out.append(':').append(port.intValue());
+        } else {
+            out.append(uri, hostEnd, end);
+        }
+    }
+
+    private void appendHost(CharSequence uri, int start, int end, StringBuilder out) {
+        if (!hosts.isEmpty()) {
+            String newHost = hosts.get(uri, start, end);
+            if (newHost != null) {
+                out.append(newHost);
+                return;
+            }
+        }
+
+        out.append(uri, start, end);
+    }
+
+    private void appendQuery(CharSequence uri, int start, int end, StringBuilder out) {
+        if (!rewritesQuery) {
+            out.append('?').append(uri, start, end);
+            return;
+        }
+
+        int queryStart = out.length();
+        out.append('?');
+        int pairStart = start;
+        while (pairStart < end) {
+            int pairEnd = indexOfAny(uri, pairStart, end, "&");
+            int nameEnd = indexOfAny(uri, pairStart, pairEnd, "=");
+            if (pairEnd > pairStart && !isRemoved(uri, pairStart, nameEnd)) {
+                if (out.length() > queryStart + 1) {
+                    out.append('&');
+                }
+                out.append(uri, pairStart, pairEnd);
+            }
+            pairStart = pairEnd + 1;
+        }
+
+        if (out.length() == queryStart + 1) {
+            out.setLength(queryStart);
+        }
+    }
+
+    private boolean isRemoved(CharSequence uri, int start, int end) {
+        if (indexOfAny(uri, start, end, "%+") < end) {
+            String name = decode(uri.subSequence(start, end).toString());
+            return matches(name, 0, name.length());
+        }
+
+        return matches(uri, start, end);
+    }
+
+    private boolean matches(CharSequence name, int start, int end) {
+        return parameterNames.contains(name, start, end)
+                || parameterPrefixes.matchesPrefixOf(name, start, end);
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static int schemeEnd(CharSequence uri) {
+        for (int i = 0; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == ':') {
+                return i;
+            }
+            boolean schemeChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (i > 0 && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'));
+            if (!schemeChar) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean startsWithSlashes(CharSequence uri, int position) {
+        return position + 1 < uri.length() && uri.charAt(position) == '/' && uri.charAt(position + 1) == '/';
+    }
+
+    private static int indexOfAny(CharSequence uri, int start, int end, String chars) {
+        for (int i = start; i < end; i++) {
+            if (chars.indexOf(uri.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+
+        return end;
+    }
+}
@@ -0,0 +1,193 @@
+import com.dejankos.builder.URIBuilder;
+import com.dejankos.builder.URIParser;
+import com.dejankos.model.Parameter;
+import com.dejankos.uri.UriScheme;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocation budgets for the builder and parser hot paths.
+ * <P>
+ *
+ * Each scenario is warmed up and then measured with
+ * com.sun.management.ThreadMXBean#getThreadAllocatedBytes on the current thread.
+ * Budgets are bytes per call, taken on a HotSpot JDK 17 with roughly 25% headroom.
+ * A change that adds allocations to a hot path should fail here, a change that
+ * removes them should lower the matching budget.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP_ITERATIONS = 50000;
+    private static final int MEASURED_ITERATIONS = 20000;
+
+    private static final long TO_STRING_BUDGET = 16;
+    private static final long TO_URI_BUDGET = 16;
+    private static final long REBUILD_BUDGET = 2300;
+    private static final long PRIMITIVE_REBUILD_BUDGET = 1500;
+    private static final long PARSE_FROM_STRING_BUDGET = 2200;
+    private static final long SET_PARAMETER_BUDGET = 480;
+    private static final long REMOVE_PARAMETER_BUDGET = 480;
+    private static final long REPLACE_PARAMETER_VALUE_BUDGET = 400;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    /**
+     * Keeps results reachable so the JIT can't drop the measured calls.
+     */
+    private static volatile Object sink;
+
+    @BeforeClass
+    public static void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void to_string_allocation_budget() {
+        final URIBuilder builder = newBuilder();
+
+        assertWithinBudget("toString()", TO_STRING_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = builder.toString();
+            }
+        });
+    }
+
+    @Test
+    public void to_uri_allocation_budget() {
+        final URIBuilder builder = newBuilder();
+
+        assertWithinBudget("toURI()", TO_URI_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = builder.toURI();
+            }
+        });
+    }
+
+    @Test
+    public void rebuild_after_modification_allocation_budget() {
+        final URIBuilder builder = newBuilder();
+
+        assertWithinBudget("toString() after setPath()", REBUILD_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = builder.setPath("/test/path").toString();
+            }
+        });
+    }
+
+    @Test
+    public void primitive_parameters_rebuild_allocation_budget() {
+        final URIBuilder builder = URIBuilder.fromHost("www.test.com")
+                .setScheme(UriScheme.HTTP)
+                .setPath("/test/path")
+                .setParameter("id", 42)
+                .setParameter("timestamp", 1476748800000L)
+                .setParameter("ratio", 0.5)
+                .setParameter("active", true)
+                .setParameterValues("ids", new long[]{1, 2, 3})
+                .setDefaultCharset();
+
+        assertWithinBudget("toString() with primitive parameters", PRIMITIVE_REBUILD_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = builder.setPath("/test/path").toString();
+            }
+        });
+    }
+
+    @Test
+    public void parse_from_string_allocation_budget() {
+        assertWithinBudget("parseFromString()", PARSE_FROM_STRING_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = URIParser.parseFromString("http://www.test.com:8080/test/path?first=1&second=2&third=3");
+            }
+        });
+    }
+
+    @Test
+    public void set_parameter_allocation_budget() {
+        assertWithinBudget("setParameter()", SET_PARAMETER_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = URIBuilder.fromHost("www.test.com")
+                        .setParameter("first", "1")
+                        .setParameter("second", "2", "3")
+                        .setParameter(new Parameter("third", "4"));
+            }
+        });
+    }
+
+    @Test
+    public void remove_parameter_allocation_budget() {
+        assertWithinBudget("removeParameter()", REMOVE_PARAMETER_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = URIBuilder.fromHost("www.test.com")
+                        .setParameter("first", "1")
+                        .setParameter("second", "2")
+                        .setParameter("third", "3")
+                        .removeParameter("first")
+                        .removeParameter(new Parameter("second", "2"));
+            }
+        });
+    }
+
+    @Test
+    public void replace_parameter_value_allocation_budget() {
+        assertWithinBudget("replaceParameterValue()", REPLACE_PARAMETER_VALUE_BUDGET, new Runnable() {
+            @Override
+            public void run() {
+                sink = URIBuilder.fromHost("www.test.com")
+                        .setParameter("first", "1")
+                        .setParameter("second", "2")
+                        .replaceParameterValue("first", "3");
+            }
+        });
+    }
+
+    private static URIBuilder newBuilder() {
+        return URIBuilder.fromHost("www.test.com")
+                .setScheme(UriScheme.HTTP)
+                .setPort(8080)
+                .setPath("/test/path")
+                .setParameter("first", "1")
+                .setParameter("second", "2", "3")
+                .setParameter("third", "a b&c")
+                .setDefaultCharset();
+    }
+
+    private static void assertWithinBudget(String scenario, long budget, Runnable action) {
+        long allocated = allocatedBytesPerCall(action);
+        assertTrue(String.format("%s allocated %d bytes per call, budget is %d", scenario, allocated, budget),
+                allocated <= budget);
+    }
+
+    private static long allocatedBytesPerCall(Runnable action) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            action.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            action.run();
+        }
+        long after = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        return (after - before) / MEASURED_ITERATIONS;
+    }
+}
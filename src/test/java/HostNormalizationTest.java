@@ -0,0 +1,67 @@
+import com.dejankos.builder.URIBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Host normalization cache, observed through the host instances URIBuilder returns.
+ * A cache hit returns the instance stored on the first miss, a new miss returns a new instance.
+ */
+public class HostNormalizationTest {
+
+    /**
+     * HostNormalizer generation size, every generation rotation happens within this many new hosts.
+     */
+    private static final int GENERATION_SIZE = 2048;
+
+    @Test
+    public void normalized_hosts_bypass_cache() {
+        String host = "www.fast-path.test.com";
+        String equalHost = new String(host);
+
+        assertSame(host, host(host));
+        assertSame(equalHost, host(equalHost));
+    }
+
+    @Test
+    public void repeated_miss_is_cached() {
+        String host = host("WWW.Cached.test.com.");
+
+        assertEquals("www.cached.test.com", host);
+        assertSame(host, host("WWW.Cached.test.com."));
+    }
+
+    @Test
+    public void cache_stays_bounded() {
+        String host = host("BOUNDED.test.com");
+
+        fill("BOUNDED", 2 * GENERATION_SIZE);
+
+        String reloaded = host("BOUNDED.test.com");
+        assertEquals(host, reloaded);
+        assertNotSame(host, reloaded);
+    }
+
+    @Test
+    public void previous_generation_hit_is_promoted() {
+        String host = host("PROMOTED.test.com");
+
+        // one rotation, host is now in the previous generation and this hit promotes it
+        fill("PROMOTED-FIRST", GENERATION_SIZE);
+        assertSame(host, host("PROMOTED.test.com"));
+
+        // another rotation drops the old previous generation, only a promoted host survives it
+        fill("PROMOTED-SECOND", GENERATION_SIZE);
+        assertSame(host, host("PROMOTED.test.com"));
+    }
+
+    private static void fill(String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            host(prefix + i + ".test.com");
+        }
+    }
+
+    private static String host(String host) {
+        return URIBuilder.fromHost(host).toParsedURI().getHost();
+    }
+}
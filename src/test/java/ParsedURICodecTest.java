@@ -0,0 +1,123 @@
+import com.dejankos.builder.URIParser;
+import com.dejankos.codec.ParsedURICodec;
+import com.dejankos.model.Parameter;
+import com.dejankos.model.ParsedURI;
+import com.dejankos.uri.UriScheme;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParsedURICodecTest {
+
+    @Test
+    public void encode_decode_single_uri() throws IOException {
+        ParsedURI parsedURI = URIParser.parseFromString("https://www.test.com:8080/test/path?first=1&second=%C5%A1");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParsedURICodec.encode(parsedURI, new DataOutputStream(bytes));
+        ParsedURI decoded = ParsedURICodec.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(parsedURI, decoded);
+        assertEquals(Integer.valueOf(8080), decoded.getPort());
+    }
+
+    @Test
+    public void encode_decode_nulls_and_multiple_values() throws IOException {
+        List<Parameter> parameters = new ArrayList<>();
+        parameters.add(new Parameter("first", "1", "2", null));
+        parameters.add(new Parameter("second", (String[]) null));
+        ParsedURI parsedURI = new ParsedURI(null, "www.test.com", null, null, parameters);
+
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        ParsedURICodec.encode(parsedURI, buffer);
+        buffer.flip();
+        ParsedURI decoded = ParsedURICodec.decode(buffer);
+
+        assertEquals(parsedURI, decoded);
+        assertNull(decoded.getScheme());
+        assertNull(decoded.getPort());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void encode_decode_batch_with_dictionary() throws IOException {
+        List<ParsedURI> batch = Arrays.asList(
+                URIParser.parseFromString("http://www.test.com/a?first=1&second=2"),
+                URIParser.parseFromString("http://www.test.com/b?first=3&second=4"),
+                new ParsedURI(UriScheme.HTTPS, "other.test.com", "/c", 443, new ArrayList<Parameter>()));
+
+        ByteArrayOutputStream withDictionary = new ByteArrayOutputStream();
+        ParsedURICodec.encodeBatch(batch, new DataOutputStream(withDictionary), true);
+        ByteArrayOutputStream withoutDictionary = new ByteArrayOutputStream();
+        ParsedURICodec.encodeBatch(batch, new DataOutputStream(withoutDictionary), false);
+
+        assertEquals(batch, ParsedURICodec.decodeBatch(ByteBuffer.wrap(withDictionary.toByteArray())));
+        assertEquals(batch, ParsedURICodec.decodeBatch(new DataInputStream(new ByteArrayInputStream(withoutDictionary.toByteArray()))));
+        assertTrue(withDictionary.size() < withoutDictionary.size());
+    }
+
+    @Test
+    public void encode_decode_large_port_and_long_value() throws IOException {
+        char[] longValue = new char[300];
+        Arrays.fill(longValue, 'x');
+        List<Parameter> parameters = new ArrayList<>();
+        parameters.add(new Parameter("long", new String(longValue)));
+        ParsedURI parsedURI = new ParsedURI(UriScheme.HTTP, "www.test.com", "", 65535, parameters);
+
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        ParsedURICodec.encode(parsedURI, buffer);
+        buffer.flip();
+
+        assertEquals(parsedURI, ParsedURICodec.decode(buffer));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_rejects_unknown_batch_version() throws IOException {
+        ParsedURICodec.decodeBatch(new DataInputStream(new ByteArrayInputStream(new byte[]{42, 0, 0})));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_rejects_oversized_string_length() throws IOException {
+        // scheme, then host length varint 0x7FFFFFFF
+        ParsedURICodec.decode(ByteBuffer.wrap(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_stream_rejects_oversized_string_length() throws IOException {
+        ParsedURICodec.decode(new DataInputStream(new ByteArrayInputStream(
+                new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07})));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_batch_rejects_oversized_count() throws IOException {
+        ParsedURICodec.decodeBatch(ByteBuffer.wrap(new byte[]{1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}));
+    }
+
+    @Test
+    public void decode_rejects_truncated_input() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        ParsedURICodec.encode(URIParser.parseFromString("http://www.test.com/test/path?first=1"), buffer);
+        buffer.flip();
+
+        for (int length = 0; length < buffer.limit(); length++) {
+            ByteBuffer truncated = buffer.duplicate();
+            truncated.limit(length);
+            try {
+                ParsedURICodec.decode(truncated);
+                fail("Decoded truncated record of " + length + " bytes");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+}
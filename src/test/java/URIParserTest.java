@@ -1,11 +1,16 @@
 import com.dejankos.builder.URIParser;
+import com.dejankos.builder.URIResolver;
 import com.dejankos.model.Parameter;
+import com.dejankos.model.ParameterMultimap;
 import com.dejankos.model.ParsedURI;
 import org.junit.Test;
 import com.dejankos.uri.UriScheme;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import static org.junit.Assert.*;
 
@@ -39,6 +44,71 @@ public class URIParserTest {
         assertEquals("", parsedURI.getPath());
         assertTrue(parsedURI.getParameterList().size() == 0);
     }
-}
 
+    @Test
+    public void parse_uri_parameter_multimap() {
+        ParsedURI parsedURI = URIParser.parseFromString("http://www.test.com/test/path?first=1&second=2&first=3");
+        ParameterMultimap multimap = parsedURI.getParameterMultimap();
+
+        assertSame(multimap, parsedURI.getParameterMultimap());
+        assertEquals("1", multimap.getFirst("first"));
+        assertEquals(Arrays.asList("1", "3"), multimap.getAll("first"));
+        assertEquals(Collections.singletonList("2"), multimap.getAll("second"));
+        assertTrue(multimap.contains("second"));
+        assertFalse(multimap.contains("third"));
+        assertNull(multimap.getFirst("third"));
+        assertTrue(multimap.getAll("third").isEmpty());
+        assertEquals(Arrays.asList("first", "second"), new ArrayList<>(multimap.getNames()));
+    }
+
+    @Test
+    public void parameter_multimap_without_parameter_list() {
+        ParsedURI parsedURI = new ParsedURI(UriScheme.HTTP, "www.test.com", "/", null, null);
+
+        assertTrue(parsedURI.getParameterMultimap().getNames().isEmpty());
+        assertNull(parsedURI.getParameterMultimap().getFirst("first"));
+        assertTrue(parsedURI.getParameterMap().isEmpty());
+    }
+
+    @Test
+    public void parse_uri_normalizes_host() {
+        ParsedURI parsedURI = URIParser.parseFromString("http://B\u00FCcher.DE:8080/test/path?first=1");
+
+        assertEquals("xn--bcher-kva.de", parsedURI.getHost());
+        assertEquals(Integer.valueOf(8080), parsedURI.getPort());
+        assertEquals("/test/path", parsedURI.getPath());
+        assertEquals("1", parsedURI.getParameterMultimap().getFirst("first"));
+
+        parsedURI = URIParser.parseFromString("http://user@B\u00FCcher.de/");
+        assertEquals("xn--bcher-kva.de", parsedURI.getHost());
+        assertNull(parsedURI.getPort());
+
+        assertEquals("www.test.com", URIParser.parseFromString("http://WWW.Test.com./").getHost());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_uri_rejects_port_out_of_range() {
+        URIParser.parseFromString("http://www.test.com:99999/");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_uri_rejects_idn_host_port_out_of_range() {
+        URIParser.parseFromString("http://B\u00FCcher.de:99999/");
+    }
 
+    @Test
+    public void parse_uri_keeps_invalid_idn_host_lowercased() {
+        StringBuilder label = new StringBuilder("\u00FC");
+        for (int i = 0; i < 70; i++) {
+            label.append('A');
+        }
+        String host = label.toString();
+
+        ParsedURI parsedURI = URIParser.parseFromString("http://" + host + ".de./test/path?first=1");
+
+        assertEquals(host.toLowerCase(Locale.ROOT) + ".de", parsedURI.getHost());
+        assertEquals("/test/path", parsedURI.getPath());
+        assertEquals(host.toLowerCase(Locale.ROOT) + ".de",
+                URIResolver.resolve(URIParser.parseFromString("http://a/b"), "//" + host + ".de/c").getHost());
+    }
+}
@@ -0,0 +1,123 @@
+import com.dejankos.builder.URIParser;
+import com.dejankos.builder.URIResolver;
+import com.dejankos.model.Parameter;
+import com.dejankos.model.ParsedURI;
+import com.dejankos.uri.UriScheme;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class URIResolverTest {
+
+    private final ParsedURI base = URIParser.parseFromString("http://a/b/c/d;p?q=1");
+
+    @Test
+    public void resolve_normal_examples() {
+        assertPath("/b/c/g", "g");
+        assertPath("/b/c/g", "./g");
+        assertPath("/b/c/g/", "g/");
+        assertPath("/g", "/g");
+        assertPath("/b/c/g", "g#s");
+        assertPath("/b/c/;x", ";x");
+        assertPath("/b/c/", ".");
+        assertPath("/b/c/", "./");
+        assertPath("/b/", "..");
+        assertPath("/b/", "../");
+        assertPath("/b/g", "../g");
+        assertPath("/", "../..");
+        assertPath("/", "../../");
+        assertPath("/g", "../../g");
+    }
+
+    @Test
+    public void resolve_abnormal_examples() {
+        assertPath("/g", "../../../g");
+        assertPath("/g", "../../../../g");
+        assertPath("/g", "/./g");
+        assertPath("/g", "/../g");
+        assertPath("/b/c/g.", "g.");
+        assertPath("/b/c/.g", ".g");
+        assertPath("/b/c/g..", "g..");
+        assertPath("/b/c/..g", "..g");
+        assertPath("/b/g", "./../g");
+        assertPath("/b/c/g/", "./g/.");
+        assertPath("/b/c/g/h", "g/./h");
+        assertPath("/b/c/h", "g/../h");
+    }
+
+    @Test
+    public void resolve_query_references() {
+        ParsedURI resolved = URIResolver.resolve(base, "?y=1");
+        assertEquals("/b/c/d;p", resolved.getPath());
+        assertEquals(Collections.singletonList(new Parameter("y", "1")), resolved.getParameterList());
+
+        resolved = URIResolver.resolve(base, "g?y=a%20b");
+        assertEquals("/b/c/g", resolved.getPath());
+        assertEquals(Collections.singletonList(new Parameter("y", "a b")), resolved.getParameterList());
+
+        resolved = URIResolver.resolve(base, "#s");
+        assertEquals("/b/c/d;p", resolved.getPath());
+        assertSame(base.getParameterList(), resolved.getParameterList());
+
+        assertEquals(base, URIResolver.resolve(base, ""));
+    }
+
+    @Test
+    public void resolve_authority_and_scheme_references() {
+        ParsedURI resolved = URIResolver.resolve(base, "//g");
+        assertEquals(UriScheme.HTTP, resolved.getScheme());
+        assertEquals("g", resolved.getHost());
+        assertEquals("", resolved.getPath());
+        assertNull(resolved.getPort());
+
+        resolved = URIResolver.resolve(base, "https://user@www.test.com:8443/x/../y?z=1#top");
+        assertEquals(UriScheme.HTTPS, resolved.getScheme());
+        assertEquals("www.test.com", resolved.getHost());
+        assertEquals(Integer.valueOf(8443), resolved.getPort());
+        assertEquals("/y", resolved.getPath());
+        assertEquals(Collections.singletonList(new Parameter("z", "1")), resolved.getParameterList());
+    }
+
+    @Test
+    public void resolve_decodes_path_like_parser() {
+        ParsedURI resolved = URIResolver.resolve(base, "%C5%A1/a%20b");
+
+        assertEquals(URIParser.parseFromString("http://a/b/c/%C5%A1/a%20b").getPath(), resolved.getPath());
+    }
+
+    @Test
+    public void resolve_keeps_encoded_separators_and_dots_in_segments() {
+        assertPath("/b/c/x/a/../b", "x/a%2F..%2Fb");
+        assertPath("/b/c/x/../y", "x/%2E%2E/y");
+        assertPath("/x/a/./b", "/x/a%2F.%2Fb");
+        assertPath("/b/c/a%b", "a%25b");
+
+        ParsedURI percentBase = URIParser.parseFromString("http://a/b%25c/d");
+        assertEquals("/b%c/g", URIResolver.resolve(percentBase, "g").getPath());
+    }
+
+    @Test
+    public void resolve_query_without_values() {
+        assertEquals(Collections.singletonList(new Parameter("flag", "")), URIResolver.resolve(base, "?flag").getParameterList());
+        assertEquals(Collections.singletonList(new Parameter("x", "")), URIResolver.resolve(base, "g?x=").getParameterList());
+        assertEquals(Arrays.asList(new Parameter("a", ""), new Parameter("b", "1")),
+                URIResolver.resolve(base, "?a&b=1").getParameterList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resolve_rejects_unsupported_scheme() {
+        URIResolver.resolve(base, "mailto:someone@test.com");
+    }
+
+    private void assertPath(String expectedPath, String ref) {
+        ParsedURI resolved = URIResolver.resolve(base, ref);
+
+        assertEquals(ref, UriScheme.HTTP, resolved.getScheme());
+        assertEquals(ref, "a", resolved.getHost());
+        assertEquals(ref, expectedPath, resolved.getPath());
+        assertTrue(ref, resolved.getParameterList().isEmpty());
+    }
+}
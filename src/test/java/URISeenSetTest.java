@@ -0,0 +1,127 @@
+import com.dejankos.builder.URIBuilder;
+import com.dejankos.builder.URIParser;
+import com.dejankos.dedup.URISeenSet;
+import com.dejankos.model.Parameter;
+import com.dejankos.model.ParsedURI;
+import com.dejankos.uri.UriScheme;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class URISeenSetTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void add_and_contains() {
+        URISeenSet seenSet = URISeenSet.create();
+        ParsedURI parsedURI = URIParser.parseFromString("http://www.test.com/test/path?first=1&second=2");
+
+        assertFalse(seenSet.contains(parsedURI));
+        assertTrue(seenSet.add(parsedURI));
+        assertFalse(seenSet.add(parsedURI));
+        assertTrue(seenSet.contains(parsedURI));
+        assertFalse(seenSet.contains(URIParser.parseFromString("http://www.test.com/test/path?first=1&second=3")));
+        assertEquals(1, seenSet.size());
+    }
+
+    @Test
+    public void canonical_equivalents_are_seen() {
+        URISeenSet seenSet = URISeenSet.create();
+        seenSet.add(URIParser.parseFromString("http://www.test.com/test/path?first=1&second=2&first=3"));
+
+        assertTrue(seenSet.contains(URIParser.parseFromString("http://WWW.Test.com:80/test/path?second=2&first=1&first=3")));
+        assertTrue(seenSet.contains(URIBuilder.fromHost("www.test.com.")
+                .setScheme(UriScheme.HTTP)
+                .setPath("/test/path")
+                .setParameter("second", 2)
+                .setParameter("first", "1", "3")));
+        assertFalse(seenSet.contains(URIParser.parseFromString("http://www.test.com/test/path?first=3&first=1&second=2")));
+        assertFalse(seenSet.contains(URIParser.parseFromString("https://www.test.com/test/path?first=1&second=2&first=3")));
+    }
+
+    @Test
+    public void separators_in_values_do_not_collide() {
+        URISeenSet seenSet = URISeenSet.create();
+        List<Parameter> joined = new ArrayList<>();
+        joined.add(new Parameter("first", "1&second=2"));
+        seenSet.add(new ParsedURI(UriScheme.HTTP, "www.test.com", "/", null, joined));
+
+        assertFalse(seenSet.contains(URIParser.parseFromString("http://www.test.com/?first=1&second=2")));
+    }
+
+    @Test
+    public void set_grows_past_expected_size() {
+        URISeenSet seenSet = URISeenSet.create(16, 4);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(seenSet.add(URIBuilder.fromHost("www.test.com").setParameter("id", i)));
+        }
+
+        assertEquals(10000, seenSet.size());
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(seenSet.contains(URIBuilder.fromHost("www.test.com").setParameter("id", i)));
+        }
+        assertFalse(seenSet.contains(URIBuilder.fromHost("www.test.com").setParameter("id", 10000)));
+    }
+
+    @Test
+    public void save_and_load() throws IOException {
+        URISeenSet seenSet = URISeenSet.create(1000, 8);
+        for (int i = 0; i < 1000; i++) {
+            seenSet.add(URIBuilder.fromHost("www.test.com").setPath("/item/" + i));
+        }
+
+        File file = temporaryFolder.newFile();
+        seenSet.save(file);
+        URISeenSet loaded = URISeenSet.load(file);
+
+        assertEquals(1000, loaded.size());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(loaded.contains(URIBuilder.fromHost("www.test.com").setPath("/item/" + i)));
+        }
+        assertTrue(loaded.add(URIBuilder.fromHost("www.test.com").setPath("/item/1000")));
+    }
+
+    @Test(expected = IOException.class)
+    public void load_rejects_other_files() throws IOException {
+        URISeenSet.load(temporaryFolder.newFile());
+    }
+
+    @Test
+    public void concurrent_adds() throws InterruptedException {
+        final URISeenSet seenSet = URISeenSet.create(16, 16);
+        final AtomicInteger added = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 5000; i++) {
+                        if (seenSet.add(URIBuilder.fromHost("www.test.com").setParameter("id", i))) {
+                            added.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(5000, added.get());
+        assertEquals(5000, seenSet.size());
+    }
+}
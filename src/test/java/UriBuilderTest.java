@@ -4,9 +4,15 @@ import org.junit.Assert;
 import org.junit.Test;
 import com.dejankos.uri.UriScheme;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -148,4 +154,204 @@ public class UriBuilderTest {
 
         Assert.assertEquals("http://www.test.com:8080/test/path", uri.toString());
     }
+
+    @Test
+    public void build_uri_is_rebuilt_after_modification() {
+        URIBuilder builder = URIBuilder.fromHost("www.test.com")
+                .setScheme(UriScheme.HTTP)
+                .setParameter("first", "1");
+
+        Assert.assertEquals("http://www.test.com?first=1", builder.toString());
+        Assert.assertSame(builder.toString(), builder.toString());
+        Assert.assertSame(builder.toURI(), builder.toURI());
+
+        builder.setPath("/test/path");
+        Assert.assertEquals("http://www.test.com/test/path?first=1", builder.toString());
+
+        builder.replaceParameterValue("first", "2");
+        Assert.assertEquals("http://www.test.com/test/path?first=2", builder.toURI().toString());
+
+        builder.setPort(8080).removeParameter("first");
+        Assert.assertEquals("http://www.test.com:8080/test/path", builder.toURI().toString());
+
+        builder.setParameter("second", "a b").setDefaultCharset();
+        Assert.assertEquals("http://www.test.com:8080/test/path?second=a+b", builder.toString());
+    }
+
+    @Test
+    public void build_uri_with_primitive_parameters() {
+        URI uri = URIBuilder.fromHost("www.test.com")
+                .setScheme(UriScheme.HTTP)
+                .setParameter("int", -42)
+                .setParameter("long", 1476748800000L)
+                .setParameter("double", 1.5)
+                .setParameter("boolean", true)
+                .setParameterValues("ids", new long[]{1, 2, 3})
+                .setParameter("string", "a b")
+                .setDefaultCharset()
+                .toURI();
+
+        Assert.assertEquals("http://www.test.com?int=-42&long=1476748800000&double=1.5&boolean=true&ids=1&ids=2&ids=3&string=a+b", uri.toString());
+    }
+
+    @Test
+    public void set_parameter_with_null_values() {
+        Assert.assertEquals("www.test.com?first=", URIBuilder.fromHost("www.test.com")
+                .setParameter("first", null)
+                .toString());
+    }
+
+    @Test
+    public void build_uri_with_primitive_parameters_remove_and_replace() {
+        URI uri = URIBuilder.fromHost("www.test.com")
+                .setParameter("first", 1)
+                .setParameter("second", 2L)
+                .setParameter("third", false)
+                .setParameterValues("fourth", new long[]{4, 5})
+                .removeParameter("first")
+                .removeParameter(new Parameter("third", "false"))
+                .removeParameter(new Parameter("fourth", "4"))
+                .replaceParameterValue("second", "3")
+                .toURI();
+
+        Assert.assertEquals("www.test.com?second=3&fourth=4&fourth=5", uri.toString());
+    }
+
+    @Test
+    public void build_uri_with_empty_primitive_array() {
+        URI uri = URIBuilder.fromHost("www.test.com")
+                .setParameterValues("ids")
+                .toURI();
+
+        Assert.assertEquals("www.test.com?ids=", uri.toString());
+    }
+
+    @Test
+    public void write_uri_to_writer_and_channel() throws IOException {
+        URIBuilder builder = URIBuilder.fromHost("www.test.com")
+                .setScheme(UriScheme.HTTP)
+                .setPath("/test/path")
+                .setParameter("first", "a b")
+                .setParameterValues("ids", new long[]{1, 2})
+                .setDefaultCharset();
+        String expected = "http://www.test.com/test/path?first=a+b&ids=1&ids=2";
+
+        StringWriter writer = new StringWriter();
+        builder.writeTo(writer);
+        Assert.assertEquals(expected, writer.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        builder.writeTo(Channels.newChannel(bytes));
+        Assert.assertEquals(expected, bytes.toString("UTF-8"));
+
+        Assert.assertEquals(expected, builder.toString());
+    }
+
+    @Test
+    public void write_large_uri_to_writer() throws IOException {
+        long[] ids = new long[5000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        URIBuilder builder = URIBuilder.fromHost("www.test.com").setParameterValues("id", ids);
+
+        StringWriter writer = new StringWriter();
+        builder.writeTo(writer);
+
+        Assert.assertEquals(builder.toString(), writer.toString());
+    }
+
+    @Test
+    public void build_paged_uris() {
+        List<String> uris = URIBuilder.fromHost("www.test.com")
+                .setScheme(UriScheme.HTTP)
+                .setPath("/lookup")
+                .setParameterValues("id", new long[]{1, 22, 333})
+                .setParameter("format", "json")
+                .setParameter("id", "4444")
+                .toPagedStrings("id", 46);
+
+        Assert.assertEquals(Arrays.asList(
+                "http://www.test.com/lookup?format=json&id=1",
+                "http://www.test.com/lookup?format=json&id=22",
+                "http://www.test.com/lookup?format=json&id=333",
+                "http://www.test.com/lookup?format=json&id=4444"), uris);
+
+        uris = URIBuilder.fromHost("www.test.com")
+                .setParameterValues("id", new long[]{1, 22, 333})
+                .setParameter("id", "4444")
+                .toPagedStrings("id", 29);
+
+        Assert.assertEquals(Arrays.asList(
+                "www.test.com?id=1&id=22",
+                "www.test.com?id=333&id=4444"), uris);
+        for (String uri : uris) {
+            Assert.assertTrue(uri.length() <= 29);
+        }
+    }
+
+    @Test
+    public void build_paged_uris_without_paged_values() {
+        List<String> uris = URIBuilder.fromHost("www.test.com")
+                .setParameter("format", "json")
+                .toPagedStrings("id", 100);
+
+        Assert.assertEquals(Collections.singletonList("www.test.com?format=json"), uris);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void build_paged_uris_value_does_not_fit() {
+        URIBuilder.fromHost("www.test.com")
+                .setParameter("id", "12345678901234567890")
+                .toPagedStrings("id", 20);
+    }
+
+    @Test
+    public void build_uri_with_normalized_host() {
+        Assert.assertEquals("http://www.test.com/test/path", URIBuilder.fromHost("WWW.Test.COM.")
+                .setScheme(UriScheme.HTTP)
+                .setPath("/test/path")
+                .toString());
+        Assert.assertEquals("http://xn--bcher-kva.de", URIBuilder.fromHost("B\u00FCcher.de")
+                .setScheme(UriScheme.HTTP)
+                .toURI()
+                .toString());
+    }
+
+    @Test
+    public void caller_value_arrays_are_copied() {
+        String[] values = {"1", "2"};
+        Parameter parameter = new Parameter("second", "3");
+        URIBuilder builder = URIBuilder.fromHost("www.test.com")
+                .setParameter("first", values)
+                .setParameter(parameter);
+        Assert.assertEquals("www.test.com?first=1&first=2&second=3", builder.toString());
+
+        values[0] = "changed";
+        parameter.getValue()[0] = "changed";
+
+        Assert.assertEquals("www.test.com?first=1&first=2&second=3", builder.toString());
+        Assert.assertEquals("www.test.com?first=1&first=2&second=3", builder.setPath(null).toString());
+    }
+
+    @Test
+    public void normalize_only_host_part() {
+        Assert.assertEquals("http://xn--bcher-kva.de/x", URIBuilder.fromHost("http://B\u00FCcher.de")
+                .setPath("/x")
+                .toString());
+        Assert.assertEquals("http://www.test.com/CaseSensitive?Q=1", URIBuilder.fromHost("http://WWW.Test.com./CaseSensitive?Q=1")
+                .toString());
+        Assert.assertEquals("www.test.com:8080/Path", URIBuilder.fromHost("WWW.test.com:8080/Path").toString());
+        Assert.assertEquals("www.test.com/redirect?to=http://A", URIBuilder.fromHost("WWW.test.com/redirect?to=http://A").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void host_empty_after_scheme() {
+        URIBuilder.fromHost("http://./path");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void host_empty_after_normalization() {
+        URIBuilder.fromHost(".");
+    }
 }
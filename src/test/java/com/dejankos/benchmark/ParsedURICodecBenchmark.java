@@ -0,0 +1,106 @@
+package com.dejankos.benchmark;
+
+import com.dejankos.builder.URIParser;
+import com.dejankos.codec.ParsedURICodec;
+import com.dejankos.model.ParsedURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParsedURICodec against Java serialization for a batch of 1000 URIs over 4 hosts.
+ * Encoded sizes are printed once per fork.
+ * <P>
+ *
+ * Run with:
+ * mvn -P jmh clean test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ParsedURICodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsedURICodecBenchmark {
+
+    private static final String[] HOSTS = {"www.test.com", "api.test.com", "cdn.test.com", "shop.test.com"};
+
+    private ArrayList<ParsedURI> batch;
+    private byte[] serialized;
+    private byte[] encoded;
+    private byte[] encodedWithDictionary;
+
+    @Setup
+    public void setUp() throws IOException {
+        batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(URIParser.parseFromString("https://" + HOSTS[i % HOSTS.length] + ":8443/catalog/item/" + i
+                    + "?id=" + i + "&lang=en&page=" + (i % 10) + "&sort=price&utm_source=newsletter"));
+        }
+
+        serialized = javaSerializationEncode();
+        encoded = codecEncode();
+        encodedWithDictionary = codecDictionaryEncode();
+        System.out.println("Java serialization: " + serialized.length + " bytes, ParsedURICodec: " + encoded.length
+                + " bytes, ParsedURICodec + dictionary: " + encodedWithDictionary.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] javaSerializationEncode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(batch);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaSerializationDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] codecEncode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParsedURICodec.encodeBatch(batch, new DataOutputStream(bytes), false);
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<ParsedURI> codecDecode() throws IOException {
+        return ParsedURICodec.decodeBatch(ByteBuffer.wrap(encoded));
+    }
+
+    @Benchmark
+    public byte[] codecDictionaryEncode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParsedURICodec.encodeBatch(batch, new DataOutputStream(bytes), true);
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<ParsedURI> codecDictionaryDecode() throws IOException {
+        return ParsedURICodec.decodeBatch(ByteBuffer.wrap(encodedWithDictionary));
+    }
+}
@@ -0,0 +1,60 @@
+package com.dejankos.benchmark;
+
+import com.dejankos.builder.URIParser;
+import com.dejankos.builder.URIResolver;
+import com.dejankos.model.ParsedURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URIResolver.resolve against java.net.URI.resolve followed by URIParser.parseFromURI.
+ * <P>
+ *
+ * Run with:
+ * mvn -P jmh clean test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main URIResolverBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class URIResolverBenchmark {
+
+    private static final String BASE = "http://www.test.com/catalog/items/list?page=1&sort=price";
+
+    @Param({"item/42", "../other/item?id=7", "?page=2", "//cdn.test.com/img/logo.png", "/a/./b/../c"})
+    public String ref;
+
+    private URI baseURI;
+    private ParsedURI baseParsedURI;
+
+    @Setup
+    public void setUp() {
+        baseURI = URI.create(BASE);
+        baseParsedURI = URIParser.parseFromString(BASE);
+    }
+
+    @Benchmark
+    public ParsedURI uriResolver() {
+        return URIResolver.resolve(baseParsedURI, ref);
+    }
+
+    @Benchmark
+    public ParsedURI javaNetURIResolve() {
+        return URIParser.parseFromURI(baseURI.resolve(ref));
+    }
+}